@@ -0,0 +1,271 @@
+package project3;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.Random;
+/**
+ * This class measures the hot paths of the program on SyntheticDataset data sets at 1x, 10x and 100x the size of
+ * the real data set: loading the CSV file or its CatalogSnapshot, merging rows into a SpeciesList, searching names
+ * with keywords that match and keywords that do not, positional access, membership tests, county lookups and
+ * iteration.
+ * Each benchmark is run for a few warmup iterations, so the JIT compiler has optimized it, and then for several
+ * measured iterations of about ITERATION_MILLIS each. The report gives the mean time per operation with its
+ * standard deviation over the measured iterations, and the bytes allocated per operation by the benchmark thread,
+ * read from com.sun.management.ThreadMXBean. Loading in parallel also allocates on the fork-join pool, which the
+ * allocation column does not include.
+ * Run it from the directory holding src and bench, with a large heap for the largest scale:
+ * javac -d out src/*.java bench/*.java
+ * java -Xmx4g -cp out project3.SpeciesBenchmark [--scale 1,10,100] [--filter text]
+ * Only benchmarks whose names contain the filter text are run. The default scales are 1 and 10.
+ * @author Adam Soliman
+ * @version 3-6-24
+ */
+public class SpeciesBenchmark {
+
+	static final int WARMUP_ITERATIONS = 3;
+	static final int MEASURED_ITERATIONS = 5;
+	static final long ITERATION_MILLIS = 500;
+
+	/**
+	 * Number of distinct keywords cycled through by the search benchmarks.
+	 */
+	static final int KEYWORDS = 1024;
+
+	/**
+	 * One operation of a benchmark. Its result is consumed, so the JIT compiler cannot remove the work.
+	 */
+	interface Operation {
+		/**
+		 * Runs the operation once.
+		 * @return	a value derived from the result of the operation.
+		 * @throws Exception	if the operation fails.
+		 */
+		long run() throws Exception;
+	}
+
+	private static volatile long sink; // consumes the results of the operations
+	private static final com.sun.management.ThreadMXBean THREADS =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	private final String filter;
+
+	/**
+	 * Constructs a benchmark run.
+	 * @param filter	text the names of the benchmarks to run must contain, or "" to run all of them.
+	 */
+	SpeciesBenchmark(String filter) {
+		this.filter = filter;
+	}
+
+	/**
+	 * Runs the benchmarks.
+	 * @param args	options: --scale followed by a comma-separated list of scales, and --filter followed by text.
+	 * @throws Exception	if a benchmark fails.
+	 */
+	public static void main(String[] args) throws Exception {
+		String scales = "1,10";
+		String filter = "";
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--scale") && i + 1 < args.length) {
+				scales = args[++i];
+			} else if (args[i].equals("--filter") && i + 1 < args.length) {
+				filter = args[++i];
+			} else {
+				System.err.println("Usage: SpeciesBenchmark [--scale 1,10,100] [--filter text]");
+				System.exit(1);
+			}
+		}
+		THREADS.setThreadAllocatedMemoryEnabled(true);
+		SpeciesBenchmark bench = new SpeciesBenchmark(filter);
+		System.out.printf("%-32s %6s %14s %12s %14s%n", "Benchmark", "Scale", "ns/op", "+/-", "bytes/op");
+		for (String scale : scales.split(",")) {
+			bench.runAll(new SyntheticDataset(Integer.parseInt(scale.trim()), 42));
+		}
+	}
+
+	/**
+	 * Runs every benchmark selected by the filter on one data set.
+	 * @param data	data set.
+	 * @throws Exception	if a benchmark fails.
+	 */
+	void runAll(SyntheticDataset data) throws Exception {
+		File csv = File.createTempFile("species-" + data.scale() + "x-", ".csv");
+		csv.deleteOnExit();
+		data.writeCsv(csv);
+
+		// load
+		run("load.streaming", data, () -> SpeciesLoader.loadStreaming(csv).size());
+		run("load.mapped", data, () -> SpeciesLoader.loadMapped(csv).size());
+		run("load.parallel", data, () -> SpeciesLoader.loadParallel(csv).size());
+		File snapshot = CatalogSnapshot.snapshotFile(csv);
+		snapshot.deleteOnExit();
+		CatalogSnapshot.write(SpeciesLoader.load(csv), csv, snapshot);
+		run("load.snapshot", data, () -> CatalogSnapshot.read(snapshot, csv).size());
+
+		// dedup and merge of the rows of the data set; one operation merges every row
+		run("merge.add", data, () -> {
+			SpeciesList list = new SpeciesList();
+			for (int row = 0; row < data.rows(); row++) {
+				list.add(data.species(row), data.county(row));
+			}
+			return list.size();
+		});
+		run("merge.builder", data, () -> {
+			SpeciesList.Builder builder = SpeciesList.builder();
+			for (int row = 0; row < data.rows(); row++) {
+				builder.add(data.species(row), data.county(row));
+			}
+			return builder.build().size();
+		});
+
+		SpeciesList list = SpeciesLoader.loadMapped(csv).freeze();
+		Species[] elements = list.toArray();
+		String[] hits = data.hits(KEYWORDS, 1);
+		String[] misses = data.misses(KEYWORDS, 2);
+		Random random = new Random(3);
+		int[] positions = new int[KEYWORDS];
+		Species[] absent = new Species[KEYWORDS];
+		String[] counties = new String[KEYWORDS];
+		for (int k = 0; k < KEYWORDS; k++) {
+			positions[k] = random.nextInt(list.size());
+			absent[k] = new Species("Animal", "Birds", "Songbirds", "Absentia " + k, "Missing Bird " + k, "Rare");
+			counties[k] = SyntheticDataset.COUNTIES[random.nextInt(SyntheticDataset.COUNTIES.length)];
+		}
+		int[] next = new int[1]; // index of the next keyword, cycled by each operation
+
+		// name search
+		run("search.getByName.hit", data, () -> {
+			SpeciesList result = list.getByName(hits[next[0]++ & (KEYWORDS - 1)]);
+			return result == null ? 0 : result.size();
+		});
+		run("search.getByName.miss", data, () -> {
+			SpeciesList result = list.getByName(misses[next[0]++ & (KEYWORDS - 1)]);
+			return result == null ? 0 : result.size();
+		});
+		run("search.getByName.short", data, () -> { // every match of the keywords of page10
+			SpeciesList result = list.getByName(hits[next[0]++ & (KEYWORDS - 1)].substring(0, 2));
+			return result == null ? 0 : result.size();
+		});
+		run("search.getByName.page10", data, () -> {
+			SpeciesList result = list.getByName(hits[next[0]++ & (KEYWORDS - 1)].substring(0, 2), 0, 10);
+			return result == null ? 0 : result.size();
+		});
+		run("search.autocomplete", data, () -> {
+			SpeciesList result = list.autocomplete(hits[next[0]++ & (KEYWORDS - 1)].substring(0, 3), 10);
+			return result == null ? 0 : result.size();
+		});
+
+		// positional access and membership
+		run("list.get", data, () -> list.get(positions[next[0]++ & (KEYWORDS - 1)]).hashCode());
+		run("list.contains.hit", data,
+				() -> list.contains(elements[positions[next[0]++ & (KEYWORDS - 1)]]) ? 1 : 0);
+		run("list.contains.miss", data, () -> list.contains(absent[next[0]++ & (KEYWORDS - 1)]) ? 1 : 0);
+
+		// county membership
+		run("species.isPresentIn", data, () -> {
+			int k = next[0]++ & (KEYWORDS - 1);
+			return elements[positions[k]].isPresentIn(counties[k]) ? 1 : 0;
+		});
+		// a new species per operation, as for each row of a load, so that the county is never already present;
+		// species.new is the cost of creating it, and the difference is the cost of addCounty()
+		run("species.new", data, () -> copy(absent[next[0]++ & (KEYWORDS - 1)]).hashCode());
+		run("species.addCounty", data, () -> {
+			int k = next[0]++ & (KEYWORDS - 1);
+			Species s = copy(absent[k]);
+			return s.addCounty(counties[k]) ? 1 : 0;
+		});
+		run("search.getByCounty", data, () -> {
+			SpeciesList result = list.getByCounty(counties[next[0]++ & (KEYWORDS - 1)]);
+			return result == null ? 0 : result.size();
+		});
+
+		// iteration; one operation visits every element
+		run("list.iterate", data, () -> {
+			long h = 0;
+			for (Species s : list) {
+				h += s.hashCode();
+			}
+			return h;
+		});
+		snapshot.delete();
+		csv.delete();
+	}
+
+	/**
+	 * Creates a species equal to the specified one, present in no county.
+	 * @param s	species to copy.
+	 * @return	a new species with the attributes of s.
+	 */
+	private static Species copy(Species s) {
+		return new Species(s.getCategory(), s.getTaxonomicGroup(), s.getTaxonomicSubGroup(), s.getScientificName(),
+				s.getCommonName(), s.getNYListingStatus());
+	}
+
+	/**
+	 * Runs one benchmark, if its name contains the filter, and prints its results.
+	 * @param name	name of the benchmark.
+	 * @param data	data set the benchmark runs on.
+	 * @param op	operation to measure.
+	 * @throws Exception	if the operation fails.
+	 */
+	void run(String name, SyntheticDataset data, Operation op) throws Exception {
+		if (!name.contains(filter))
+			return;
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			iteration(op);
+		}
+		ArrayList<double[]> results = new ArrayList<>();
+		for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+			results.add(iteration(op));
+		}
+		double mean = 0;
+		double bytes = 0;
+		for (double[] r : results) {
+			mean += r[0];
+			bytes += r[1];
+		}
+		mean /= results.size();
+		bytes /= results.size();
+		double variance = 0;
+		for (double[] r : results) {
+			variance += (r[0] - mean) * (r[0] - mean);
+		}
+		double deviation = Math.sqrt(variance / Math.max(1, results.size() - 1));
+		System.out.println(String.format(Locale.ROOT, "%-32s %5dx %14.1f %12.1f %14.1f", name, data.scale(), mean,
+				deviation, bytes));
+	}
+
+	/**
+	 * Runs the operation repeatedly for about ITERATION_MILLIS, and at least once. Operations are timed in batches,
+	 * doubled until a batch takes a millisecond, so that reading the clock does not dominate fast operations.
+	 * @param op	operation to measure.
+	 * @return	the mean time per operation in nanoseconds, and the mean bytes allocated per operation.
+	 * @throws Exception	if the operation fails.
+	 */
+	private static double[] iteration(Operation op) throws Exception {
+		long thread = Thread.currentThread().getId();
+		long deadline = ITERATION_MILLIS * 1_000_000L;
+		long count = 0;
+		long result = 0;
+		int batch = 1;
+		long allocated = THREADS.getThreadAllocatedBytes(thread);
+		long start = System.nanoTime();
+		long elapsed = 0;
+		while (elapsed < deadline) {
+			long batchStart = System.nanoTime();
+			for (int i = 0; i < batch; i++) {
+				result += op.run();
+			}
+			count += batch;
+			long now = System.nanoTime();
+			if (now - batchStart < 1_000_000L && batch < (1 << 20))
+				batch <<= 1;
+			elapsed = now - start;
+		}
+		allocated = THREADS.getThreadAllocatedBytes(thread) - allocated;
+		sink += result;
+		return new double[] { (double) elapsed / count, (double) allocated / count };
+	}
+
+}
@@ -0,0 +1,292 @@
+package project3;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+/**
+ * This class generates a synthetic data set with the shape of "Biodiversity by County - Distribution of Animals,
+ * Plants and Natural Communities" from data.ny.gov: the same columns, the 62 counties of New York, the real
+ * categories, taxonomic groups and listing statuses, and multi-word common and scientific names. Most species are
+ * present in a few counties and a few are present in most of them, as in the real data.
+ * At scale 1 the data set has about as many rows (20,000) and species (4,000) as the real one; at scale s it has
+ * s times as many of each. The same scale and seed always generate the same data.
+ * Rows are kept as pairs of a species number and a county number, so that large scales fit in memory.
+ * @author Adam Soliman
+ * @version 3-6-24
+ */
+class SyntheticDataset {
+
+	/**
+	 * Number of rows at scale 1.
+	 */
+	static final int ROWS = 20_000;
+
+	/**
+	 * Average number of counties per species.
+	 */
+	static final int COUNTIES_PER_SPECIES = 5;
+
+	static final String HEADER = "County,Category,Taxonomic Group,Taxonomic Subgroup,Scientific Name,Common Name,"
+			+ "Year Last Documented,NY Listing Status,Federal Listing Status,State Conservation Rank,"
+			+ "Global Conservation Rank,Distribution Status";
+
+	static final String[] COUNTIES = { "Albany", "Allegany", "Bronx", "Broome", "Cattaraugus", "Cayuga",
+			"Chautauqua", "Chemung", "Chenango", "Clinton", "Columbia", "Cortland", "Delaware", "Dutchess", "Erie",
+			"Essex", "Franklin", "Fulton", "Genesee", "Greene", "Hamilton", "Herkimer", "Jefferson", "Kings",
+			"Lewis", "Livingston", "Madison", "Monroe", "Montgomery", "Nassau", "New York", "Niagara", "Oneida",
+			"Onondaga", "Ontario", "Orange", "Orleans", "Oswego", "Otsego", "Putnam", "Queens", "Rensselaer",
+			"Richmond", "Rockland", "St. Lawrence", "Saratoga", "Schenectady", "Schoharie", "Schuyler", "Seneca",
+			"Steuben", "Suffolk", "Sullivan", "Tioga", "Tompkins", "Ulster", "Warren", "Washington", "Wayne",
+			"Westchester", "Wyoming", "Yates" };
+
+	// category, taxonomic group and taxonomic subgroup, weighted roughly as in the real data
+	private static final String[][] GROUPS = {
+			{ "Animal", "Birds", "Herons, Bitterns, Egrets, Pelicans" }, { "Animal", "Birds", "Songbirds" },
+			{ "Animal", "Birds", "Raptors" }, { "Animal", "Mammals", "Bats" }, { "Animal", "Mammals", "Rodents" },
+			{ "Animal", "Amphibians", "Frogs and Toads" }, { "Animal", "Amphibians", "Salamanders" },
+			{ "Animal", "Reptiles", "Turtles" }, { "Animal", "Fish", "Minnows" }, { "Animal", "Insects", "Moths" },
+			{ "Animal", "Insects", "Butterflies and Skippers" }, { "Animal", "Mollusks", "Freshwater Mussels" },
+			{ "Plant", "Vascular Plants", "Ferns" }, { "Plant", "Vascular Plants", "Sedges" },
+			{ "Plant", "Vascular Plants", "Orchids" }, { "Plant", "Vascular Plants", "Asters" },
+			{ "Plant", "Vascular Plants", "Grasses" }, { "Plant", "Vascular Plants", "Trees" },
+			{ "Plant", "Nonvascular Plants", "Mosses" },
+			{ "Natural Community", "Terrestrial", "Forested Uplands" },
+			{ "Natural Community", "Palustrine", "Forested Wetlands" } };
+
+	private static final String[] STATUSES = { "Unprotected", "Protected Native Plant", "Game with open season",
+			"Game with no open season", "Special Concern", "Threatened", "Endangered", "Rare", "Exploitably Vulnerable",
+			"Protected" };
+
+	private static final String[] ADJECTIVES = { "American", "Northern", "Eastern", "Southern", "Western", "Common",
+			"Lesser", "Greater", "Little", "Great", "Spotted", "Striped", "Red", "Blue", "Green", "Yellow", "White",
+			"Black", "Gray", "Brown", "Dwarf", "Giant", "Marsh", "Bog", "Mountain", "Swamp", "Woodland", "Prairie",
+			"Hairy", "Smooth", "Creeping", "Tufted", "Spiny", "Golden", "Silver", "Pale" };
+
+	private static final String[] NOUNS = { "Frog", "Toad", "Salamander", "Turtle", "Heron", "Warbler", "Sparrow",
+			"Hawk", "Owl", "Bat", "Vole", "Shrew", "Minnow", "Darter", "Mussel", "Moth", "Skipper", "Fritillary",
+			"Fern", "Sedge", "Orchid", "Aster", "Goldenrod", "Oak", "Maple", "Birch", "Moss", "Rush", "Violet",
+			"Lady's-slipper", "Bluet", "Swamp Forest", "Pine Barrens" };
+
+	private static final String[] SYLLABLES = { "ana", "bor", "cal", "der", "eri", "fla", "gra", "hyl", "ixo",
+			"lam", "mer", "nan", "ope", "pal", "qua", "ros", "sal", "ter", "ulm", "vir", "xan", "zeu", "ca", "li",
+			"to", "phy", "chr", "ste" };
+
+	private static final String[] ENDINGS = { "us", "a", "um", "is", "ensis", "ii", "oides", "ata", "iana", "ius" };
+
+	private final int scale;
+	private final String[][] species; // category, group, subgroup, scientific name, common name, status
+	private final int[] rowSpecies; // species number of each row
+	private final byte[] rowCounty; // county number of each row
+
+	/**
+	 * Generates the data set at the specified scale.
+	 * @param scale	multiple of the size of the real data set.
+	 * @param seed	seed of the random numbers; the same seed generates the same data.
+	 * @throws IllegalArgumentException	if the scale is not positive.
+	 */
+	SyntheticDataset(int scale, long seed) throws IllegalArgumentException {
+		if (scale <= 0) {
+			throw new IllegalArgumentException("Scale must be positive");
+		}
+		this.scale = scale;
+		Random random = new Random(seed);
+		int rows = ROWS * scale;
+		int n = rows / COUNTIES_PER_SPECIES;
+		species = new String[n][];
+		for (int i = 0; i < n; i++) {
+			String[] group = GROUPS[skewed(random, GROUPS.length)];
+			String genus = capitalize(syllables(random, 2 + random.nextInt(2)));
+			String epithet = syllables(random, 1 + random.nextInt(2)) + ENDINGS[random.nextInt(ENDINGS.length)];
+			String noun = NOUNS[random.nextInt(NOUNS.length)];
+			String common = ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + noun;
+			if (random.nextInt(3) == 0) {
+				common = ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + common;
+			}
+			// a number keeps names distinct at every scale, as subspecies and varieties do in the real data
+			species[i] = new String[] { group[0], group[1], group[2], genus + " " + epithet + " " + i,
+					common + " " + i, STATUSES[skewed(random, STATUSES.length)] };
+		}
+		rowSpecies = new int[rows];
+		rowCounty = new byte[rows];
+		int row = 0;
+		boolean[] chosen = new boolean[COUNTIES.length];
+		for (int i = 0; row < rows; i = (i + 1) % n) {
+			// 1 + 61 u^14 has a mean of about COUNTIES_PER_SPECIES, with a long tail up to every county
+			int count = 1 + (int) ((COUNTIES.length - 1) * Math.pow(random.nextDouble(), 14));
+			count = Math.min(rows - row, count);
+			Arrays.fill(chosen, false);
+			for (int k = 0; k < count; k++) {
+				int county = random.nextInt(COUNTIES.length);
+				while (chosen[county]) {
+					county = (county + 1) % COUNTIES.length;
+				}
+				chosen[county] = true;
+				rowSpecies[row] = i;
+				rowCounty[row] = (byte) county;
+				row++;
+			}
+		}
+		// shuffle the rows, since exports are not sorted by species
+		for (int i = rows - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int s = rowSpecies[i];
+			rowSpecies[i] = rowSpecies[j];
+			rowSpecies[j] = s;
+			byte c = rowCounty[i];
+			rowCounty[i] = rowCounty[j];
+			rowCounty[j] = c;
+		}
+	}
+
+	/**
+	 * Picks a number below n, with small numbers far more likely than large ones.
+	 * @param random	random numbers.
+	 * @param n	bound of the number.
+	 * @return	a number from 0 to n - 1.
+	 */
+	private static int skewed(Random random, int n) {
+		double u = random.nextDouble();
+		return Math.min(n - 1, (int) (n * u * u * u));
+	}
+
+	/**
+	 * Joins random syllables into a word.
+	 * @param random	random numbers.
+	 * @param count	number of syllables.
+	 * @return	the word.
+	 */
+	private static String syllables(Random random, int count) {
+		StringBuilder word = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+		}
+		return word.toString();
+	}
+
+	/**
+	 * Capitalizes the first letter of a word.
+	 * @param word	lowercase word.
+	 * @return	the capitalized word.
+	 */
+	private static String capitalize(String word) {
+		return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+	}
+
+	/**
+	 * Returns the scale of this data set.
+	 * @return	multiple of the size of the real data set.
+	 */
+	int scale() { return scale; }
+
+	/**
+	 * Returns the number of rows of this data set.
+	 * @return	number of rows.
+	 */
+	int rows() { return rowSpecies.length; }
+
+	/**
+	 * Returns the number of distinct species in this data set.
+	 * @return	number of species.
+	 */
+	int speciesCount() { return species.length; }
+
+	/**
+	 * Returns the name of the county of a row.
+	 * @param row	row number.
+	 * @return	the county of the row.
+	 */
+	String county(int row) { return COUNTIES[rowCounty[row]]; }
+
+	/**
+	 * Returns a new Species object for the species of a row, without counties, as a loader would construct it.
+	 * @param row	row number.
+	 * @return	the species of the row.
+	 */
+	Species species(int row) {
+		String[] s = species[rowSpecies[row]];
+		return new Species(s[0], s[1], s[2], s[3], s[4], s[5]);
+	}
+
+	/**
+	 * Returns a common or scientific name of a species of this data set.
+	 * @param i	species number.
+	 * @param common	true for the common name, false for the scientific name.
+	 * @return	the name.
+	 */
+	String name(int i, boolean common) { return species[i][common ? 4 : 3]; }
+
+	/**
+	 * Returns search keywords that each match at least one species: words and parts of words of the names.
+	 * @param n	number of keywords.
+	 * @param seed	seed of the random numbers.
+	 * @return	the keywords.
+	 */
+	String[] hits(int n, long seed) {
+		Random random = new Random(seed);
+		String[] keys = new String[n];
+		for (int k = 0; k < n; k++) {
+			String name = name(random.nextInt(species.length), random.nextBoolean());
+			int start = random.nextInt(name.length() - 3);
+			int end = Math.min(name.length(), start + 4 + random.nextInt(8));
+			keys[k] = name.substring(start, end);
+		}
+		return keys;
+	}
+
+	/**
+	 * Returns search keywords that match no species, but share most of their trigrams with real names.
+	 * @param n	number of keywords.
+	 * @param seed	seed of the random numbers.
+	 * @return	the keywords.
+	 */
+	String[] misses(int n, long seed) {
+		Random random = new Random(seed);
+		String[] keys = new String[n];
+		for (int k = 0; k < n; k++) {
+			keys[k] = NOUNS[random.nextInt(NOUNS.length)] + "q" + SYLLABLES[random.nextInt(SYLLABLES.length)];
+		}
+		return keys;
+	}
+
+	/**
+	 * Writes this data set as a CSV file with the columns of the real export.
+	 * @param file	file to write.
+	 * @throws IOException	if the file cannot be written.
+	 */
+	void writeCsv(File file) throws IOException {
+		try (Writer out = new BufferedWriter(
+				new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+			out.write(HEADER);
+			out.write('\n');
+			StringBuilder line = new StringBuilder();
+			for (int row = 0; row < rowSpecies.length; row++) {
+				String[] s = species[rowSpecies[row]];
+				line.setLength(0);
+				line.append(county(row)).append(',').append(s[0]).append(',').append(s[1]).append(',');
+				quote(line, s[2]).append(',');
+				quote(line, s[3]).append(',');
+				quote(line, s[4]).append(",1990-1999,").append(s[5])
+						.append(",not listed,\"S3B,S1N\",G5,Recently Confirmed\n");
+				out.write(line.toString());
+			}
+		}
+	}
+
+	/**
+	 * Appends a field, enclosed in quotes if it holds a comma.
+	 * @param line	line being written.
+	 * @param field	value of the field.
+	 * @return	the line.
+	 */
+	private static StringBuilder quote(StringBuilder line, String field) {
+		if (field.indexOf(',') < 0)
+			return line.append(field);
+		return line.append('"').append(field.replace("\"", "\"\"")).append('"');
+	}
+
+}
@@ -0,0 +1,69 @@
+package project3;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+/**
+ * This class is an inverted index from the values of each SpeciesAttribute to the species that have them, over a
+ * sorted array of Species objects. Each species is identified by its ordinal, its index in the array.
+ * For every value of every attribute, compared ignoring case, the index keeps a bitmap of the ordinals of the
+ * species with that value, so filters on several attributes are evaluated by intersecting bitmaps.
+ * @author Adam Soliman
+ * @version 3-6-24
+ */
+class AttributeIndex {
+
+	private static final BitSet EMPTY = new BitSet(0);
+
+	private final Species[] species;
+	private final EnumMap<SpeciesAttribute, HashMap<String, BitSet>> postings =
+			new EnumMap<>(SpeciesAttribute.class);
+
+	/**
+	 * Constructs the index over the specified species.
+	 * @param species	species in ascending order; the array is kept by the index and must not be modified.
+	 */
+	AttributeIndex(Species[] species) {
+		this.species = species;
+		for (SpeciesAttribute a : SpeciesAttribute.values()) {
+			HashMap<String, BitSet> values = new HashMap<>();
+			for (int i = 0; i < species.length; i++) {
+				values.computeIfAbsent(key(a.of(species[i])), k -> new BitSet(species.length)).set(i);
+			}
+			postings.put(a, values);
+		}
+	}
+
+	/**
+	 * Returns the number of species in this index.
+	 * @return	number of species indexed.
+	 */
+	int size() { return species.length; }
+
+	/**
+	 * Returns the species with the specified ordinal.
+	 * @param ordinal	index of the species in the sorted array.
+	 * @return	the species with the ordinal.
+	 */
+	Species get(int ordinal) { return species[ordinal]; }
+
+	/**
+	 * Returns the bitmap of the species with the specified value of an attribute, ignoring case.
+	 * @param attribute	attribute to look up.
+	 * @param value	value of the attribute.
+	 * @return	bitmap of the ordinals of the species with the value; the bitmap must not be modified.
+	 */
+	BitSet species(SpeciesAttribute attribute, String value) {
+		BitSet bits = postings.get(attribute).get(key(value));
+		return bits == null ? EMPTY : bits;
+	}
+
+	/**
+	 * Returns the key under which a value is indexed.
+	 * @param value	attribute value.
+	 * @return	the value folded by Species.fold(), so values are compared ignoring case as Species.equals() does.
+	 */
+	static String key(String value) {
+		return Species.fold(value);
+	}
+
+}
@@ -0,0 +1,151 @@
+package project3;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+/**
+ * This class is a BK-tree over the case-folded common and scientific names of a sorted array of Species objects,
+ * used to find the names within a bounded edit distance of a misspelled query. Each species is identified by its
+ * ordinal, its index in the array.
+ * The distance between two names is their Levenshtein distance: the number of single character insertions,
+ * deletions and substitutions needed to turn one into the other. Since that distance obeys the triangle inequality,
+ * a search only visits the children of a node whose edge distance is within the bound of the query's distance to
+ * the node, rather than comparing the query against every name.
+ * @author Adam Soliman
+ * @version 3-6-24
+ */
+class BKTree {
+
+	private final Node root;
+
+	/**
+	 * A node of the tree, holding one distinct name and the ordinals of the species with that name.
+	 * Each child is stored under its distance to this node.
+	 */
+	private static class Node {
+		final String name;
+		int[] ordinals = new int[1];
+		int count = 0;
+		HashMap<Integer, Node> children;
+
+		Node(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Records a species with this node's name.
+		 * @param ordinal	ordinal of the species.
+		 */
+		void add(int ordinal) {
+			if (count > 0 && ordinals[count - 1] == ordinal)
+				return;
+			if (count == ordinals.length)
+				ordinals = Arrays.copyOf(ordinals, count * 2);
+			ordinals[count++] = ordinal;
+		}
+	}
+
+	/**
+	 * Constructs the tree over the names of the specified species.
+	 * @param species	species in ascending order.
+	 */
+	BKTree(Species[] species) {
+		Node r = null;
+		for (int i = 0; i < species.length; i++) {
+			for (String key : new String[] { species[i].commonKey(), species[i].scientificKey() }) {
+				if (r == null) {
+					r = new Node(key);
+				}
+				add(r, key, i);
+			}
+		}
+		root = r;
+	}
+
+	/**
+	 * Adds a name to the tree below the specified root.
+	 * @param node	root of the tree.
+	 * @param name	folded name.
+	 * @param ordinal	ordinal of the species with this name.
+	 */
+	private static void add(Node node, String name, int ordinal) {
+		while (true) {
+			int d = distance(node.name, name);
+			if (d == 0) {
+				node.add(ordinal);
+				return;
+			}
+			if (node.children == null) {
+				node.children = new HashMap<>();
+			}
+			Node child = node.children.get(d);
+			if (child == null) {
+				child = new Node(name);
+				child.add(ordinal);
+				node.children.put(d, child);
+				return;
+			}
+			node = child;
+		}
+	}
+
+	/**
+	 * Finds the species with a name within the specified distance of the query.
+	 * @param query	folded name to search for.
+	 * @param maxDistance	largest distance of a match.
+	 * @return	a map from the ordinal of every matching species to the smallest distance between the query and
+	 * 			either of its names.
+	 */
+	HashMap<Integer, Integer> search(String query, int maxDistance) {
+		HashMap<Integer, Integer> matches = new HashMap<>();
+		if (root == null) {
+			return matches;
+		}
+		ArrayDeque<Node> pending = new ArrayDeque<>();
+		pending.push(root);
+		while (!pending.isEmpty()) {
+			Node node = pending.pop();
+			int d = distance(node.name, query);
+			if (d <= maxDistance) {
+				for (int i = 0; i < node.count; i++) {
+					matches.merge(node.ordinals[i], d, Math::min);
+				}
+			}
+			if (node.children != null) {
+				for (int k = Math.max(1, d - maxDistance); k <= d + maxDistance; k++) {
+					Node child = node.children.get(k);
+					if (child != null) {
+						pending.push(child);
+					}
+				}
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * Returns the Levenshtein distance between two Strings.
+	 * @param a	first String.
+	 * @param b	second String.
+	 * @return	the least number of single character insertions, deletions and substitutions that turn a into b.
+	 */
+	static int distance(String a, String b) {
+		int[] prev = new int[b.length() + 1];
+		int[] cur = new int[b.length() + 1];
+		for (int j = 0; j <= b.length(); j++) {
+			prev[j] = j;
+		}
+		for (int i = 1; i <= a.length(); i++) {
+			cur[0] = i;
+			char c = a.charAt(i - 1);
+			for (int j = 1; j <= b.length(); j++) {
+				int cost = c == b.charAt(j - 1) ? 0 : 1;
+				cur[j] = Math.min(Math.min(cur[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+			}
+			int[] t = prev;
+			prev = cur;
+			cur = t;
+		}
+		return prev[b.length()];
+	}
+
+}
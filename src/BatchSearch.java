@@ -0,0 +1,122 @@
+package project3;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+/**
+ * This class runs a stream of name searches, one keyword per line, against a SpeciesCatalog, using several threads,
+ * and writes the results in the order of the input as tab-separated values.
+ * Each match is written on its own line as: keyword, common name, scientific name, taxonomic group, taxonomic
+ * subgroup, NY listing status and number of counties. A keyword without matches is written on a line by itself.
+ * Blank lines of the input are skipped.
+ * Only a bounded number of searches are pending at once, and the results of each one are written as soon as it and
+ * every search before it are done, so memory use does not grow with the length of the input.
+ * @author Adam Soliman
+ * @version 3-6-24
+ */
+public class BatchSearch {
+
+	/**
+	 * Column headings written before the results.
+	 */
+	static final String HEADER = "Query\tCommon Name\tScientific Name\tTaxonomic Group\tTaxonomic Subgroup"
+			+ "\tNY Listing Status\tCounties";
+
+	private final SpeciesCatalog catalog;
+	private final int threads;
+
+	/**
+	 * Constructs a batch search over the specified catalog.
+	 * @param catalog	catalog to search.
+	 * @param threads	number of searches run at once.
+	 * @throws IllegalArgumentException	if the catalog is null or threads is not positive.
+	 */
+	public BatchSearch(SpeciesCatalog catalog, int threads) throws IllegalArgumentException {
+		if (catalog == null) {
+			throw new IllegalArgumentException("Null objects are not allowed");
+		}
+		if (threads <= 0) {
+			throw new IllegalArgumentException("Number of threads must be positive");
+		}
+		this.catalog = catalog;
+		this.threads = threads;
+	}
+
+	/**
+	 * Runs every search in the input and writes the results to the output.
+	 * @param queries	input, one keyword per line.
+	 * @param out	output the results are written to; it is flushed but not closed.
+	 * @return	the number of searches run.
+	 * @throws IOException	if the input cannot be read or the output cannot be written.
+	 */
+	public int run(Reader queries, Writer out) throws IOException {
+		BufferedReader in = new BufferedReader(queries);
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		ArrayDeque<Future<String>> pending = new ArrayDeque<>();
+		int window = threads * 4;
+		int count = 0;
+		try {
+			out.write(HEADER);
+			out.write('\n');
+			String line;
+			while ((line = in.readLine()) != null) {
+				String keyword = line.trim();
+				if (keyword.equals(""))
+					continue;
+				pending.add(pool.submit(() -> search(keyword)));
+				count++;
+				if (pending.size() >= window) {
+					out.write(result(pending.remove()));
+				}
+			}
+			while (!pending.isEmpty()) {
+				out.write(result(pending.remove()));
+			}
+			out.flush();
+		} finally {
+			pool.shutdownNow();
+		}
+		return count;
+	}
+
+	/**
+	 * Waits for a search to finish.
+	 * @param search	pending search.
+	 * @return	the lines written for the search.
+	 * @throws IOException	if the search was interrupted or failed.
+	 */
+	private static String result(Future<String> search) throws IOException {
+		try {
+			return search.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while searching", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Search failed", e.getCause());
+		}
+	}
+
+	/**
+	 * Runs one search against the current version of the catalog.
+	 * @param keyword	keyword to search for.
+	 * @return	the lines to write for the search.
+	 */
+	private String search(String keyword) {
+		String key = keyword.replace('\t', ' ');
+		StringBuilder lines = new StringBuilder();
+		int found = catalog.get().forEachByName(keyword, s -> lines.append(key).append('\t')
+				.append(s.getCommonName()).append('\t').append(s.getScientificName())
+				.append('\t').append(s.getTaxonomicGroup()).append('\t').append(s.getTaxonomicSubGroup())
+				.append('\t').append(s.getNYListingStatus()).append('\t').append(s.countyCount()).append('\n'));
+		if (found == 0) {
+			lines.append(key).append('\n');
+		}
+		return lines.toString();
+	}
+
+}
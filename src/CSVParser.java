@@ -0,0 +1,146 @@
+package project3;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+/**
+ * This class reads records from comma separated values (CSV) input, following RFC 4180.
+ * Fields are separated by commas and records by line breaks. A field enclosed in double quotes may contain commas,
+ * line breaks, and double quotes written twice (""), so a field such as "Herons, Bitterns, Egrets, Pelicans"
+ * is read as one field without its enclosing quotes.
+ * Each record is read in a single pass over the characters of the input, which is buffered by this class.
+ * @author Adam Soliman
+ * @version 3-6-24
+ */
+public class CSVParser implements Closeable {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final Reader in;
+	private final char[] buffer = new char[BUFFER_SIZE];
+	private int pos;
+	private int limit;
+	private final StringBuilder field = new StringBuilder();
+	private int lineNumber;
+
+	/**
+	 * Constructs a new CSVParser that reads records from the specified Reader.
+	 * @param in	the Reader to read CSV input from.
+	 * @throws IllegalArgumentException	if the input Reader is null.
+	 */
+	public CSVParser(Reader in) throws IllegalArgumentException {
+		if (in == null) {
+			throw new IllegalArgumentException("Null readers are not allowed");
+		}
+		this.in = in;
+		pos = 0;
+		limit = 0;
+		lineNumber = 0;
+	}
+
+	/**
+	 * Reads the next record and stores its fields, in order, into the specified array.
+	 * Fields past the length of the array are skipped without being stored.
+	 * @param fields	array that receives the fields of the record.
+	 * @return	the number of fields in the record, which may be larger than the length of the array,
+	 * 			or -1 if the end of the input has been reached.
+	 * @throws IOException	if the input cannot be read.
+	 */
+	public int next(String[] fields) throws IOException {
+		if (pos == limit && !fill()) {
+			return -1;
+		}
+		lineNumber++;
+		int count = 0;
+		while (true) {
+			boolean keep = count < fields.length;
+			int end = readField(keep);
+			if (keep) {
+				fields[count] = field.toString();
+			}
+			count++;
+			if (end != ',') {
+				return count;
+			}
+		}
+	}
+
+	/**
+	 * Returns the line number of the record most recently returned by next(), starting at 1.
+	 * Line breaks inside quoted fields are not counted.
+	 * @return	the number of the last record read.
+	 */
+	public int getLineNumber() { return lineNumber; }
+
+	/**
+	 * Reads one field into the field buffer.
+	 * @param keep	true if the characters of the field should be stored, false if the field is skipped.
+	 * @return	',' if another field follows in this record, '\n' if the record ended, or -1 at the end of input.
+	 * @throws IOException	if the input cannot be read.
+	 */
+	private int readField(boolean keep) throws IOException {
+		field.setLength(0);
+		boolean quoted = false;
+		if (pos < limit || fill()) {
+			if (buffer[pos] == '"') {
+				quoted = true;
+				pos++;
+			}
+		}
+		while (pos < limit || fill()) {
+			char c = buffer[pos++];
+			if (quoted) {
+				if (c == '"') {
+					if (pos == limit && !fill()) {
+						return -1;
+					}
+					if (buffer[pos] == '"') {
+						pos++; // escaped quote
+					} else {
+						quoted = false;
+						continue;
+					}
+				}
+			} else if (c == ',') {
+				return ',';
+			} else if (c == '\n') {
+				return '\n';
+			} else if (c == '\r') {
+				if ((pos < limit || fill()) && buffer[pos] == '\n') {
+					pos++;
+				}
+				return '\n';
+			}
+			if (keep) {
+				field.append(c);
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Refills the character buffer from the input.
+	 * @return	true if at least one character was read, false at the end of the input.
+	 * @throws IOException	if the input cannot be read.
+	 */
+	private boolean fill() throws IOException {
+		int n = in.read(buffer, 0, buffer.length);
+		if (n <= 0) {
+			pos = 0;
+			limit = 0;
+			return false;
+		}
+		pos = 0;
+		limit = n;
+		return true;
+	}
+
+	/**
+	 * Closes the underlying Reader.
+	 * @throws IOException	if the Reader cannot be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+}
@@ -0,0 +1,110 @@
+package project3;
+import java.util.ArrayList;
+/**
+ * This class represents the differences between a loaded SpeciesList and a newer version of the same data, such as
+ * a refreshed export from data.ny.gov, and applies them to the loaded list without rebuilding it.
+ * A species is added if only the newer version has it, removed if only the loaded list has it, and changed if both
+ * have it (see Species.equals) but its counties or the exact spelling of any of its attributes differ, so that a
+ * refreshed export that only changes the case of a value is published too.
+ * @author Adam Soliman
+ * @version 3-6-24
+ */
+public class CatalogDiff {
+
+	private final SpeciesList added = new SpeciesList();
+	private final ArrayList<Species> removed = new ArrayList<>();
+	private final ArrayList<Species> changed = new ArrayList<>();
+
+	private CatalogDiff() {}
+
+	/**
+	 * Finds the differences between a loaded list and a newer version of it. Each species is looked up in the
+	 * other list through its hash index, so this takes time proportional to the sizes of the two lists.
+	 * @param current	loaded list.
+	 * @param fresh	newer version of the list; its elements are moved into the current list by applyTo().
+	 * @return	the differences between the two lists.
+	 * @throws IllegalArgumentException	if either list is null.
+	 */
+	public static CatalogDiff between(SpeciesList current, SpeciesList fresh) throws IllegalArgumentException {
+		if (current == null || fresh == null) {
+			throw new IllegalArgumentException("Null objects are not allowed");
+		}
+		CatalogDiff diff = new CatalogDiff();
+		for (Species s : fresh) {
+			Species old = current.find(s);
+			if (old == null) {
+				diff.added.appendSorted(s);
+			} else if (!s.getNYListingStatus().equals(old.getNYListingStatus())
+					|| !s.getCommonName().equals(old.getCommonName())
+					|| !s.getScientificName().equals(old.getScientificName())
+					|| !s.getCategory().equals(old.getCategory())
+					|| !s.getTaxonomicGroup().equals(old.getTaxonomicGroup())
+					|| !s.getTaxonomicSubGroup().equals(old.getTaxonomicSubGroup())
+					|| !s.hasSameCounties(old)) {
+				diff.changed.add(s);
+			}
+		}
+		for (Species s : current) {
+			if (!fresh.contains(s)) {
+				diff.removed.add(s);
+			}
+		}
+		return diff;
+	}
+
+	/**
+	 * Applies these differences to the loaded list they were found from. Removed species are unlinked, added species
+	 * are merged into the list in one pass, and each changed species replaces the equal element of the list, so no
+	 * element of the list is modified in place.
+	 * @param current	list these differences were found from.
+	 * @throws IllegalArgumentException	if the list is null.
+	 */
+	public void applyTo(SpeciesList current) throws IllegalArgumentException {
+		if (current == null) {
+			throw new IllegalArgumentException("Null objects are not allowed");
+		}
+		for (Species s : removed) {
+			current.remove(s);
+		}
+		current.addAll(added);
+		for (Species s : changed) {
+			current.replace(s);
+		}
+	}
+
+	/**
+	 * Returns true if the two lists hold the same species.
+	 * @return	true if there are no differences, false otherwise.
+	 */
+	public boolean isEmpty() {
+		return added.size() == 0 && removed.isEmpty() && changed.isEmpty();
+	}
+
+	/**
+	 * Returns the number of species only the newer version has.
+	 * @return	number of added species.
+	 */
+	public int getAdded() { return added.size(); }
+
+	/**
+	 * Returns the number of species only the loaded list has.
+	 * @return	number of removed species.
+	 */
+	public int getRemoved() { return removed.size(); }
+
+	/**
+	 * Returns the number of species in both lists whose counties or attributes differ.
+	 * @return	number of changed species.
+	 */
+	public int getChanged() { return changed.size(); }
+
+	/**
+	 * Returns a summary of these differences.
+	 * @return	the number of added, removed and changed species.
+	 */
+	@Override
+	public String toString() {
+		return String.format("%d added, %d removed, %d changed", getAdded(), getRemoved(), getChanged());
+	}
+
+}
@@ -0,0 +1,201 @@
+package project3;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32C;
+/**
+ * This class saves a loaded SpeciesList to a compact binary snapshot file, and loads it back far faster than the
+ * CSV file it came from can be parsed. A snapshot records the size and CRC32C hash of its source CSV file, and is
+ * only loaded while the source file still has that size and hash.
+ * A snapshot holds, in order: a header (magic number, format version, source size and hash); the values of the
+ * dictionary of each SpeciesAttribute; the county names; and the species in ascending order, each stored as its
+ * common and scientific names, the dictionary codes of its other attributes, and the bits of its county set.
+ * All numbers are big-endian and all Strings are UTF-8 preceded by their length in bytes.
+ * Search indexes are not stored; they are rebuilt from the sorted species on their first use.
+ * @author Adam Soliman
+ * @version 3-6-24
+ */
+public class CatalogSnapshot {
+
+	private static final int MAGIC = 0x4E595342; // "NYSB"
+	static final int VERSION = 1;
+
+	private CatalogSnapshot() {}
+
+	/**
+	 * Returns the file in which the snapshot of the specified CSV file is kept by default.
+	 * @param source	CSV file.
+	 * @return	a file next to the CSV file, named after it.
+	 */
+	public static File snapshotFile(File source) {
+		return new File(source.getPath() + ".snapshot");
+	}
+
+	/**
+	 * Writes a snapshot of the specified list, loaded from the specified CSV file.
+	 * @param list	list to save.
+	 * @param source	CSV file the list was loaded from.
+	 * @param snapshot	file to write the snapshot to.
+	 * @throws IOException	if the source cannot be read or the snapshot cannot be written.
+	 */
+	public static void write(SpeciesList list, File source, File snapshot) throws IOException {
+		long hash = hash(source);
+		// write to a temporary file first, so a snapshot is never seen half written
+		File temp = new File(snapshot.getPath() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(temp), 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(source.length());
+			out.writeLong(hash);
+			SpeciesAttribute[] attributes = SpeciesAttribute.values();
+			int[] sizes = new int[attributes.length];
+			for (SpeciesAttribute a : attributes) {
+				Dictionary d = Dictionary.of(a);
+				sizes[a.ordinal()] = d.size();
+				out.writeInt(sizes[a.ordinal()]);
+				for (int code = 0; code < sizes[a.ordinal()]; code++) {
+					writeString(out, d.decode(code));
+				}
+			}
+			int counties = Counties.count();
+			out.writeInt(counties);
+			for (int id = 0; id < counties; id++) {
+				writeString(out, Counties.nameOf(id));
+			}
+			out.writeInt(list.size());
+			for (Species s : list) {
+				writeString(out, s.getCommonName());
+				writeString(out, s.getScientificName());
+				for (SpeciesAttribute a : attributes) {
+					out.writeInt(Dictionary.of(a).codeOf(a.of(s)));
+				}
+				long[] bits = s.countyBits();
+				out.writeInt(bits.length);
+				for (long w : bits) {
+					out.writeLong(w);
+				}
+			}
+		}
+		Files.move(temp.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Loads the snapshot in the specified file by memory-mapping it.
+	 * @param snapshot	snapshot file.
+	 * @param source	CSV file the snapshot should have been written from.
+	 * @return	the list saved in the snapshot, or null if the snapshot does not exist, is not a valid snapshot of
+	 * 			this format version, or was written from a different version of the source file.
+	 * @throws IOException	if the files cannot be read.
+	 */
+	public static SpeciesList read(File snapshot, File source) throws IOException {
+		if (!snapshot.isFile() || !source.isFile()) {
+			return null;
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(snapshot, "r");
+				FileChannel channel = raf.getChannel()) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				return null;
+			}
+			MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+				return null;
+			}
+			if (in.getLong() != source.length() || in.getLong() != hash(source)) {
+				return null; // stale
+			}
+			SpeciesAttribute[] attributes = SpeciesAttribute.values();
+			String[][] values = new String[attributes.length][];
+			for (SpeciesAttribute a : attributes) {
+				values[a.ordinal()] = new String[in.getInt()];
+				for (int code = 0; code < values[a.ordinal()].length; code++) {
+					values[a.ordinal()][code] = Dictionary.of(a).intern(readString(in));
+				}
+			}
+			// county IDs of this process may differ from the ones the snapshot was written with
+			int[] ids = new int[in.getInt()];
+			for (int id = 0; id < ids.length; id++) {
+				ids[id] = Counties.intern(readString(in));
+			}
+			SpeciesList list = new SpeciesList();
+			int n = in.getInt();
+			String[] fields = new String[attributes.length];
+			for (int i = 0; i < n; i++) {
+				String commonName = readString(in);
+				String scientificName = readString(in);
+				for (SpeciesAttribute a : attributes) {
+					fields[a.ordinal()] = values[a.ordinal()][in.getInt()];
+				}
+				Species s = new Species(fields[SpeciesAttribute.CATEGORY.ordinal()],
+						fields[SpeciesAttribute.TAXONOMIC_GROUP.ordinal()],
+						fields[SpeciesAttribute.TAXONOMIC_SUBGROUP.ordinal()], scientificName, commonName,
+						fields[SpeciesAttribute.NY_LISTING_STATUS.ordinal()]);
+				int words = in.getInt();
+				for (int w = 0; w < words; w++) {
+					long bits = in.getLong();
+					for (; bits != 0; bits &= bits - 1) {
+						s.addCounty(ids[(w << 6) + Long.numberOfTrailingZeros(bits)]);
+					}
+				}
+				list.appendSorted(s);
+			}
+			return list;
+		} catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+				| NegativeArraySizeException e) {
+			return null; // truncated or corrupt
+		}
+	}
+
+	/**
+	 * Computes the CRC32C hash of the contents of a file, reading it through memory-mapped regions.
+	 * @param file	input file.
+	 * @return	the hash of the file.
+	 * @throws IOException	if the file cannot be read.
+	 */
+	static long hash(File file) throws IOException {
+		CRC32C crc = new CRC32C();
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+				FileChannel channel = raf.getChannel()) {
+			long length = channel.size();
+			for (long offset = 0; offset < length; offset += SpeciesLoader.MAX_REGION) {
+				crc.update(channel.map(FileChannel.MapMode.READ_ONLY, offset,
+						Math.min(SpeciesLoader.MAX_REGION, length - offset)));
+			}
+		}
+		return crc.getValue();
+	}
+
+	/**
+	 * Writes a String as its length in bytes followed by its UTF-8 bytes.
+	 * @param out	output stream.
+	 * @param s	String to write.
+	 * @throws IOException	if the stream cannot be written.
+	 */
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Reads a String written by writeString().
+	 * @param in	buffer to read from.
+	 * @return	the String.
+	 */
+	private static String readString(MappedByteBuffer in) {
+		byte[] bytes = new byte[in.getInt()];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,59 @@
+package project3;
+/**
+ * This class assigns every county name a small integer ID, starting at 0, in the order the names are first seen.
+ * Names are compared ignoring case, as attribute values are, so "Kings" and "KINGS" are the same county, named as
+ * it was first seen.
+ * New York has 62 counties, so every county of the data set fits in the bits of one long, which is how a Species
+ * stores the counties it is present in.
+ * IDs are shared by all Species objects and never change once assigned. This class is safe for use by several
+ * threads.
+ * IDs are never released, since species are shared between the versions of a SpeciesCatalog and keep their county
+ * bits from one version to the next. A county that is no longer in any loaded version therefore keeps its ID for as
+ * long as the program runs. The number of IDs is bounded by the number of distinct county names ever loaded, not by
+ * the number of loads: reloading an export with the same counties adds none, and the real data set has 62. Arrays
+ * indexed by county ID, such as those of CountyIndex and SpeciesAggregation, are sized by that number.
+ * @author Adam Soliman
+ * @version 3-6-24
+ */
+public class Counties {
+
+	private static final Dictionary names = new Dictionary(true);
+
+	private Counties() {}
+
+	/**
+	 * Returns the ID of the specified county, assigning it the next ID if it has none.
+	 * @param county	county name.
+	 * @return	the ID of the county.
+	 * @throws IllegalArgumentException	if the county is null or empty.
+	 */
+	public static int intern(String county) throws IllegalArgumentException {
+		return names.encode(county);
+	}
+
+	/**
+	 * Returns the ID of the specified county without assigning one.
+	 * @param county	county name.
+	 * @return	the ID of the county, or -1 if it has none.
+	 */
+	public static int idOf(String county) {
+		return names.codeOf(county);
+	}
+
+	/**
+	 * Returns the name of the county with the specified ID.
+	 * @param id	county ID.
+	 * @return	the name of the county.
+	 * @throws IndexOutOfBoundsException	if no county has this ID.
+	 */
+	public static String nameOf(int id) throws IndexOutOfBoundsException {
+		return names.decode(id);
+	}
+
+	/**
+	 * Returns the number of counties that have been assigned an ID.
+	 * @return	number of county IDs.
+	 */
+	public static int count() { return names.size(); }
+
+}
@@ -0,0 +1,69 @@
+package project3;
+import java.util.Arrays;
+/**
+ * This class is an inverted index from counties to the species present in them, over a sorted array of Species
+ * objects. Each species is identified by its ordinal, its index in the array.
+ * For every county ID (see Counties), the index keeps the ascending ordinals of the species present in that county,
+ * so the species of a county are listed in sorted order in time proportional to their number.
+ * @author Adam Soliman
+ * @version 3-6-24
+ */
+class CountyIndex {
+
+	private static final int[] EMPTY = new int[0];
+
+	private final Species[] species;
+	private final int[][] postings;
+
+	/**
+	 * Constructs the index over the specified species.
+	 * @param species	species in ascending order; the array is kept by the index and must not be modified.
+	 */
+	CountyIndex(Species[] species) {
+		this.species = species;
+		int counties = Counties.count();
+		int[] sizes = new int[counties];
+		for (Species s : species) {
+			for (int id = s.nextCounty(0); id >= 0; id = s.nextCounty(id + 1)) {
+				sizes[id]++;
+			}
+		}
+		postings = new int[counties][];
+		for (int id = 0; id < counties; id++) {
+			postings[id] = sizes[id] == 0 ? EMPTY : new int[sizes[id]];
+		}
+		Arrays.fill(sizes, 0);
+		for (int i = 0; i < species.length; i++) {
+			for (int id = species[i].nextCounty(0); id >= 0; id = species[i].nextCounty(id + 1)) {
+				postings[id][sizes[id]++] = i;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of county IDs this index covers, which is larger than the ID of every county of its
+	 * species.
+	 * @return	number of counties indexed.
+	 */
+	int size() { return postings.length; }
+
+	/**
+	 * Returns the species with the specified ordinal.
+	 * @param ordinal	index of the species in the sorted array.
+	 * @return	the species with the ordinal.
+	 */
+	Species get(int ordinal) { return species[ordinal]; }
+
+	/**
+	 * Returns the ordinals, in ascending order, of the species present in the county with the specified ID.
+	 * @param id	county ID, or -1 for a county that has none.
+	 * @return	ascending ordinals of the species in the county; the array must not be modified.
+	 */
+	int[] species(int id) {
+		if (id < 0 || id >= postings.length) {
+			return EMPTY;
+		}
+		return postings[id];
+	}
+
+}
@@ -0,0 +1,139 @@
+package project3;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.concurrent.ConcurrentHashMap;
+/**
+ * This class encodes the distinct values of a String attribute as small integer codes, starting at 0, in the order
+ * the values are first seen. Every value is kept as one shared instance, so the thousands of Species objects with the
+ * same category, taxonomic group, taxonomic subgroup or listing status all refer to the same String.
+ * Values are compared exactly by default, so values differing only in case receive different codes. A dictionary
+ * constructed to ignore case gives them the same code, and decodes it to the first of them it was given; values
+ * spelt as seen before are still found without folding their case. Codes never change once assigned. This class is
+ * safe for use by several threads.
+ * Values are never removed, since species are shared between the versions of a SpeciesCatalog. The dictionaries of
+ * the attributes therefore grow with the number of distinct values ever loaded, not with the number of loads: a
+ * reload of an export only adds the values that were never seen before, and the real data set has a few hundred
+ * in all.
+ * @author Adam Soliman
+ * @version 3-6-24
+ */
+public class Dictionary {
+
+	private static final EnumMap<SpeciesAttribute, Dictionary> attributes = new EnumMap<>(SpeciesAttribute.class);
+
+	static {
+		for (SpeciesAttribute a : SpeciesAttribute.values()) {
+			attributes.put(a, new Dictionary());
+		}
+	}
+
+	private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>(); // every spelling encoded
+	private final ConcurrentHashMap<String, Integer> folded; // folded values, if case is ignored
+	private volatile String[] values = new String[16];
+	private volatile int size = 0;
+
+	/**
+	 * Constructs a new empty dictionary that compares values exactly.
+	 */
+	public Dictionary() {
+		this(false);
+	}
+
+	/**
+	 * Constructs a new empty dictionary.
+	 * @param ignoreCase	true to give values that are equal ignoring case (see Species.fold()) the same code.
+	 */
+	public Dictionary(boolean ignoreCase) {
+		folded = ignoreCase ? new ConcurrentHashMap<>() : null;
+	}
+
+	/**
+	 * Returns the dictionary shared by all species for the values of the specified attribute.
+	 * @param attribute	species attribute.
+	 * @return	the dictionary of the attribute.
+	 */
+	public static Dictionary of(SpeciesAttribute attribute) {
+		return attributes.get(attribute);
+	}
+
+	/**
+	 * Returns the code of the specified value, assigning it the next code if it has none.
+	 * @param value	input value.
+	 * @return	the code of the value.
+	 * @throws IllegalArgumentException	if the value is null or empty.
+	 */
+	public int encode(String value) throws IllegalArgumentException {
+		if (value == null || value.equals("")) {
+			throw new IllegalArgumentException("Null/empty strings are not allowed");
+		}
+		Integer code = codes.get(value);
+		if (code != null) {
+			return code;
+		}
+		synchronized (this) {
+			code = codes.get(value);
+			if (code != null) {
+				return code;
+			}
+			String key = folded == null ? null : Species.fold(value);
+			if (key != null && (code = folded.get(key)) != null) {
+				codes.put(value, code); // another spelling of a known value
+				return code;
+			}
+			String[] v = values;
+			if (size == v.length) {
+				v = Arrays.copyOf(v, v.length * 2);
+			}
+			int next = size;
+			v[next] = value;
+			values = v;
+			size = next + 1;
+			if (key != null)
+				folded.put(key, next);
+			codes.put(value, next); // published last, so decode() accepts any code returned by codeOf()
+			return next;
+		}
+	}
+
+	/**
+	 * Returns the code of the specified value without assigning one.
+	 * @param value	input value.
+	 * @return	the code of the value, or -1 if it has none.
+	 */
+	public int codeOf(String value) {
+		Integer code = value == null ? null : codes.get(value);
+		if (code == null && value != null && folded != null)
+			code = folded.get(Species.fold(value));
+		return code == null ? -1 : code;
+	}
+
+	/**
+	 * Returns the value with the specified code.
+	 * @param code	input code.
+	 * @return	the shared instance of the value.
+	 * @throws IndexOutOfBoundsException	if no value has this code.
+	 */
+	public String decode(int code) throws IndexOutOfBoundsException {
+		if (code < 0 || code >= size) {
+			throw new IndexOutOfBoundsException("No value has code " + code);
+		}
+		return values[code];
+	}
+
+	/**
+	 * Returns the shared instance of a value equal to the specified one, adding the value if it is new.
+	 * @param value	input value.
+	 * @return	the shared instance of the value.
+	 * @throws IllegalArgumentException	if the value is null or empty.
+	 */
+	public String intern(String value) throws IllegalArgumentException {
+		return decode(encode(value));
+	}
+
+	/**
+	 * Returns the number of values that have been assigned a code.
+	 * @return	number of codes.
+	 */
+	public int size() { return size; }
+
+}
@@ -0,0 +1,115 @@
+package project3;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+/**
+ * This class records how long an operation takes, in a histogram with one bucket per power of two of nanoseconds:
+ * bucket i counts the durations d with 2^(i-1) <= d < 2^i, and bucket 0 counts durations of 0. Recording a duration
+ * takes a few atomic additions and no locking, so many threads can record at once.
+ * Percentiles are estimated as the upper bound of the bucket they fall in, so they are at most twice too large. The
+ * largest duration is recorded exactly, and no percentile is estimated above it.
+ * @author Adam Soliman
+ * @version 3-6-24
+ */
+public class LatencyHistogram {
+
+	private static final int BUCKETS = 64;
+
+	private final String name;
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder total = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Constructs an empty histogram.
+	 * @param name	name the histogram is reported under.
+	 */
+	LatencyHistogram(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Returns the name the histogram is reported under.
+	 * @return	the name of the histogram.
+	 */
+	public String getName() { return name; }
+
+	/**
+	 * Records the duration of an operation that started at the specified time, if metrics are enabled.
+	 * @param start	value of System.nanoTime() when the operation started, as returned by Metrics.start().
+	 */
+	void stop(long start) {
+		if (Metrics.ENABLED)
+			record(System.nanoTime() - start);
+	}
+
+	/**
+	 * Records the duration of an operation.
+	 * @param nanos	duration in nanoseconds; negative durations count as 0.
+	 */
+	void record(long nanos) {
+		nanos = Math.max(0, nanos);
+		buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(nanos));
+		count.increment();
+		total.add(nanos);
+		max.accumulate(nanos);
+	}
+
+	/**
+	 * Returns the number of durations recorded.
+	 * @return	number of operations recorded.
+	 */
+	public long getCount() { return count.sum(); }
+
+	/**
+	 * Returns the sum of the durations recorded.
+	 * @return	total time of the operations recorded, in nanoseconds.
+	 */
+	public long getTotalNanos() { return total.sum(); }
+
+	/**
+	 * Returns the largest duration recorded.
+	 * @return	the duration of the slowest operation recorded, in nanoseconds, or 0 if nothing was recorded.
+	 */
+	public long getMaxNanos() { return max.get(); }
+
+	/**
+	 * Estimates a percentile of the durations recorded.
+	 * @param p	percentile, from 0 to 100.
+	 * @return	an upper bound of the percentile, in nanoseconds, at most the largest duration recorded, or 0 if
+	 * 			nothing was recorded.
+	 */
+	public long percentile(double p) {
+		long n = 0;
+		long[] counts = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets.get(i);
+			n += counts[i];
+		}
+		long rank = (long) Math.ceil(n * Math.min(100, Math.max(0, p)) / 100);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank && seen > 0)
+				return i == 0 ? 0 : Math.min(getMaxNanos(), i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << i) - 1);
+		}
+		return 0;
+	}
+
+	/**
+	 * Adds the count, total time, mean and percentiles of this histogram to a map of metrics, named after it.
+	 * @param values	map of metric names to values.
+	 */
+	void addValues(Map<String, Long> values) {
+		long n = getCount();
+		values.put(name + ".count", n);
+		values.put(name + ".total_ms", getTotalNanos() / 1_000_000);
+		values.put(name + ".mean_us", n == 0 ? 0 : getTotalNanos() / n / 1000);
+		values.put(name + ".p50_us", percentile(50) / 1000);
+		values.put(name + ".p99_us", percentile(99) / 1000);
+		values.put(name + ".max_us", getMaxNanos() / 1000);
+	}
+
+}
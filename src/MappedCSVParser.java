@@ -0,0 +1,176 @@
+package project3;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+/**
+ * This class reads CSV records, following RFC 4180, directly from the UTF-8 bytes of a ByteBuffer, such as a
+ * memory-mapped file. Only the columns selected by the caller are decoded into Strings; the bytes of every other
+ * column are scanned past without being copied or decoded.
+ * Records are read from a range of the buffer, which should start at the beginning of a record. As in CSVParser,
+ * a record ends at a CRLF, a LF or a CR alone.
+ * @author Adam Soliman
+ * @version 3-6-24
+ */
+public class MappedCSVParser {
+
+	private final ByteBuffer buffer;
+	private int pos;
+	private final int end;
+	private byte[] scratch = new byte[256];
+	private int length; // length of the field held in scratch
+
+	/**
+	 * Constructs a new MappedCSVParser over the bytes of the buffer from start (inclusive) to end (exclusive).
+	 * @param buffer	buffer holding UTF-8 encoded CSV input.
+	 * @param start	index of the first byte of the first record to read.
+	 * @param end	index one past the last byte to read.
+	 * @throws IllegalArgumentException	if the buffer is null or the range is not within the buffer.
+	 */
+	public MappedCSVParser(ByteBuffer buffer, int start, int end) throws IllegalArgumentException {
+		if (buffer == null) {
+			throw new IllegalArgumentException("Null buffers are not allowed");
+		}
+		if (start < 0 || end > buffer.limit() || start > end) {
+			throw new IllegalArgumentException("Range is not within the buffer");
+		}
+		this.buffer = buffer;
+		this.pos = start;
+		this.end = end;
+	}
+
+	/**
+	 * Reads the next record. Column i is decoded into fields[i] only if bit i of columns is set and i is
+	 * less than the length of the array; other entries of the array are set to null.
+	 * @param fields	array that receives the decoded fields of the record.
+	 * @param columns	bit mask of the columns to decode.
+	 * @return	the number of fields in the record, or -1 if the end of the range has been reached.
+	 */
+	public int next(String[] fields, long columns) {
+		if (pos >= end) {
+			return -1;
+		}
+		int count = 0;
+		while (true) {
+			boolean keep = count < fields.length && count < 64 && (columns & (1L << count)) != 0;
+			int last = keep ? readField() : skipField();
+			if (count < fields.length) {
+				fields[count] = keep ? decode() : null;
+			}
+			count++;
+			if (last != ',') {
+				return count;
+			}
+		}
+	}
+
+	/**
+	 * Returns the index of the next byte to be read.
+	 * @return	current position of this parser in the buffer.
+	 */
+	public int position() { return pos; }
+
+	/**
+	 * Reads one field into the scratch array, removing enclosing quotes and escaped quotes.
+	 * @return	',' if another field follows in this record, '\n' if the record ended, or -1 at the end of the range.
+	 */
+	private int readField() {
+		length = 0;
+		if (pos < end && buffer.get(pos) == '"') {
+			pos++;
+			while (pos < end) {
+				byte b = buffer.get(pos++);
+				if (b == '"') {
+					if (pos < end && buffer.get(pos) == '"') {
+						pos++; // escaped quote
+					} else {
+						break;
+					}
+				}
+				append(b);
+			}
+		}
+		// copy the unquoted part of the field in one bulk get
+		int start = pos;
+		int last = scanToDelimiter();
+		int n = (last == -1 ? pos : pos - 1) - start;
+		if (last == '\n' && n > 0 && buffer.get(pos - 1) == '\n' && buffer.get(pos - 2) == '\r') {
+			n--; // CRLF
+		}
+		if (n > 0) {
+			ensureCapacity(length + n);
+			buffer.get(start, scratch, length, n);
+			length += n;
+		}
+		return last;
+	}
+
+	/**
+	 * Skips past one field without copying any of its bytes.
+	 * @return	',' if another field follows in this record, '\n' if the record ended, or -1 at the end of the range.
+	 */
+	private int skipField() {
+		if (pos < end && buffer.get(pos) == '"') {
+			pos++;
+			while (pos < end) {
+				if (buffer.get(pos++) == '"') {
+					if (pos < end && buffer.get(pos) == '"') {
+						pos++; // escaped quote
+					} else {
+						break;
+					}
+				}
+			}
+		}
+		return scanToDelimiter();
+	}
+
+	/**
+	 * Advances past the next comma or line break, a CRLF being one line break.
+	 * @return	',' or '\n' for the delimiter that was found, or -1 if the end of the range was reached first.
+	 */
+	private int scanToDelimiter() {
+		while (pos < end) {
+			byte b = buffer.get(pos++);
+			if (b == ',') {
+				return ',';
+			} else if (b == '\n') {
+				return '\n';
+			} else if (b == '\r') {
+				if (pos < end && buffer.get(pos) == '\n') {
+					pos++;
+				}
+				return '\n';
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Decodes the field held in the scratch array.
+	 * @return	the field as a String.
+	 */
+	private String decode() {
+		return new String(scratch, 0, length, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Appends one byte to the field held in the scratch array.
+	 * @param b	byte to append.
+	 */
+	private void append(byte b) {
+		ensureCapacity(length + 1);
+		scratch[length++] = b;
+	}
+
+	/**
+	 * Grows the scratch array so that it holds at least the specified number of bytes.
+	 * @param capacity	required number of bytes.
+	 */
+	private void ensureCapacity(int capacity) {
+		if (capacity > scratch.length) {
+			byte[] grown = new byte[Math.max(capacity, scratch.length * 2)];
+			System.arraycopy(scratch, 0, grown, 0, length);
+			scratch = grown;
+		}
+	}
+
+}
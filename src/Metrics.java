@@ -0,0 +1,155 @@
+package project3;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+/**
+ * This class holds the metrics of the program: counters of the rows loaded, of the species merged or inserted and
+ * of the hits and misses of query caches, and histograms of the time taken by loads, searches and aggregations.
+ * The metrics are exported as text by report(), which the program prints for the command "metrics" and
+ * SpeciesServer serves on /metrics, and over JMX once register() is called.
+ * Metrics are only recorded when the program is run with the system property nyspecies.metrics set to true
+ * (java -Dnyspecies.metrics=true ...). The property is read once into a constant, so when it is not set, the code
+ * that records metrics is removed by the JIT compiler and costs nothing. Counters are LongAdders, so threads that
+ * record at once do not contend.
+ * @author Adam Soliman
+ * @version 3-6-24
+ */
+public final class Metrics implements MetricsMXBean {
+
+	/**
+	 * True if metrics are recorded.
+	 */
+	static final boolean ENABLED = Boolean.getBoolean("nyspecies.metrics");
+
+	/**
+	 * Rows read from CSV files, including the rows rejected.
+	 */
+	static final LongAdder ROWS_PARSED = new LongAdder();
+
+	/**
+	 * Rows rejected because they have too few columns.
+	 */
+	static final LongAdder ROWS_MALFORMED = new LongAdder();
+
+	/**
+	 * Rows rejected because their county or a species field is empty.
+	 */
+	static final LongAdder ROWS_INVALID = new LongAdder();
+
+	/**
+	 * Species added one at a time to a list or builder that already held an equal species, whose counties were
+	 * merged into it. Lists and builders combined with addAll() are not counted again.
+	 */
+	static final LongAdder MERGE_HITS = new LongAdder();
+
+	/**
+	 * Species added one at a time to a list or builder that held no equal species.
+	 * A parallel load adds every row to the builder of its chunk, so together with MERGE_HITS this counts the rows
+	 * added, and a species found in several chunks is inserted once in each.
+	 */
+	static final LongAdder INSERTS = new LongAdder();
+
+	/**
+	 * Searches answered from a QueryCache.
+	 */
+	static final LongAdder CACHE_HITS = new LongAdder();
+
+	/**
+	 * Searches a QueryCache could not answer.
+	 */
+	static final LongAdder CACHE_MISSES = new LongAdder();
+
+	static final LatencyHistogram LOAD = new LatencyHistogram("load");
+	static final LatencyHistogram NAME_SEARCH = new LatencyHistogram("search.name");
+	static final LatencyHistogram PREFIX_SEARCH = new LatencyHistogram("search.prefix");
+	static final LatencyHistogram FUZZY_SEARCH = new LatencyHistogram("search.fuzzy");
+	static final LatencyHistogram FILTER_SEARCH = new LatencyHistogram("search.filter");
+	static final LatencyHistogram AGGREGATE = new LatencyHistogram("aggregate");
+
+	private static final LatencyHistogram[] HISTOGRAMS = { LOAD, NAME_SEARCH, PREFIX_SEARCH, FUZZY_SEARCH,
+			FILTER_SEARCH, AGGREGATE };
+
+	private Metrics() {}
+
+	/**
+	 * Returns the time an operation starts at, to be passed to LatencyHistogram.stop() when it ends.
+	 * @return	the value of System.nanoTime(), or 0 if metrics are disabled.
+	 */
+	static long start() {
+		return ENABLED ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Counts one species added to a list or builder by add().
+	 * @param merged	true if its counties were merged into an equal species, false if it was inserted.
+	 */
+	static void added(boolean merged) {
+		if (ENABLED)
+			(merged ? MERGE_HITS : INSERTS).increment();
+	}
+
+	/**
+	 * Returns the current value of every metric, by name, in the order of report().
+	 * @return	the metrics.
+	 */
+	static Map<String, Long> values() {
+		LinkedHashMap<String, Long> values = new LinkedHashMap<>();
+		values.put("rows.parsed", ROWS_PARSED.sum());
+		values.put("rows.rejected.malformed", ROWS_MALFORMED.sum());
+		values.put("rows.rejected.invalid", ROWS_INVALID.sum());
+		long loadNanos = LOAD.getTotalNanos();
+		values.put("rows.per_second", loadNanos == 0 ? 0 : ROWS_PARSED.sum() * 1_000_000_000L / loadNanos);
+		values.put("species.merged", MERGE_HITS.sum());
+		values.put("species.inserted", INSERTS.sum());
+		values.put("cache.hits", CACHE_HITS.sum());
+		values.put("cache.misses", CACHE_MISSES.sum());
+		for (LatencyHistogram h : HISTOGRAMS) {
+			h.addValues(values);
+		}
+		return values;
+	}
+
+	/**
+	 * Returns the metrics as text, one "name value" line per metric.
+	 * @return	the text report; it only says metrics are disabled if they are.
+	 */
+	static String report() {
+		if (!ENABLED)
+			return "# metrics are disabled; run with -Dnyspecies.metrics=true\n";
+		StringBuilder out = new StringBuilder();
+		for (Map.Entry<String, Long> e : values().entrySet()) {
+			out.append(e.getKey()).append(' ').append(e.getValue()).append('\n');
+		}
+		return out.toString();
+	}
+
+	/**
+	 * Registers the metrics with the platform MBean server under the name "project3:type=Metrics", unless they are
+	 * already registered.
+	 * @throws IllegalStateException	if the metrics cannot be registered.
+	 */
+	static synchronized void register() throws IllegalStateException {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName("project3:type=Metrics");
+			if (!server.isRegistered(name))
+				server.registerMBean(new Metrics(), name);
+		} catch (JMException e) {
+			throw new IllegalStateException("Metrics cannot be registered", e);
+		}
+	}
+
+	@Override
+	public boolean isEnabled() { return ENABLED; }
+
+	@Override
+	public Map<String, Long> getValues() { return values(); }
+
+	@Override
+	public String getReport() { return report(); }
+
+}
@@ -0,0 +1,29 @@
+package project3;
+import java.util.Map;
+/**
+ * The JMX management interface of the metrics of the program, registered by Metrics.register() under the name
+ * "project3:type=Metrics", so that the metrics can be read with JConsole or any other JMX client.
+ * @author Adam Soliman
+ * @version 3-6-24
+ */
+public interface MetricsMXBean {
+
+	/**
+	 * Returns true if metrics are recorded.
+	 * @return	true if the system property nyspecies.metrics is true, false otherwise.
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Returns the current value of every metric, by name.
+	 * @return	the metrics, named as in getReport().
+	 */
+	Map<String, Long> getValues();
+
+	/**
+	 * Returns the metrics as text, one "name value" line per metric.
+	 * @return	the text report.
+	 */
+	String getReport();
+
+}
@@ -1,7 +1,14 @@
 package project3;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.NoSuchElementException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Scanner;
 /**
  * This class contains the main method and program for this project. Program is run through the command line, in which
@@ -12,11 +19,37 @@ import java.util.Scanner;
  * @version 3-6-24
  */
 public class NYSpecies {
+	
+	/**
+	 * Largest number of species listed for a search that ends with '*', which lists the species whose names start
+	 * with the text before it, and of similar species suggested for a search with no matches.
+	 */
+	static final int SUGGESTIONS = 10;
+	
+	/**
+	 * Largest number of misspelled characters in a search that still suggests a species with a similar name.
+	 */
+	static final int FUZZY_DISTANCE = 2;
+	
 	// C:\Users\adoma\Downloads\Biodiversity_by_County_-_Distribution_of_Animals__Plants_and_Natural_Communities_20240307.csv
     /**
      * The main() method for the program
      * @param args	Array of strings on the command line when the program is run;
      * 				The first argument on the command line should be a String containing the file name. 
+     * 				It may be followed by the option --snapshot, which loads the data from a binary snapshot kept
+     * 				next to the file when the snapshot is up to date, and otherwise writes a new one.
+     * 				The option --serve followed by a port number also serves searches over HTTP on that port
+     * 				(see SpeciesServer).
+     * 				The option --cache followed by a number sets how many search results are cached (0 disables the
+     * 				cache; see QueryCache).
+     * 				The option --batch followed by a file name, or by - for standard input, runs the searches in the
+     * 				file, one per line, writes their results to standard output (see BatchSearch) and exits; both
+     * 				are UTF-8.
+     * 				While searching, typing "reload" applies the changes made to the file since it was loaded, and
+     * 				typing "metrics" prints the metrics of the program, which are recorded when it is run with
+     * 				-Dnyspecies.metrics=true and can also be read over JMX (see Metrics), and typing "stats" prints
+     * 				the number of species per taxonomic group, the richest counties and the most widespread species
+     * 				(see SpeciesAggregation).
      */
 	public static void main(String[] args) {
 		if (args.length == 0) {
@@ -33,74 +66,155 @@ public class NYSpecies {
 			System.err.println("Error: the file " + input.getAbsolutePath() + " cannot be read \n");
 			System.exit(1);
 		}
-		Scanner sc = null;
+		boolean useSnapshot = false;
+		int port = -1;
+		String batch = null;
+		int cacheSize = QueryCache.DEFAULT_CAPACITY;
+		for (int i = 1; i < args.length; i++) {
+			if (args[i].equals("--snapshot")) {
+				useSnapshot = true;
+			} else if (args[i].equals("--serve") && i + 1 < args.length) {
+				try {
+					port = Integer.parseInt(args[++i]);
+				} catch (NumberFormatException e) {
+					System.err.println("Error: " + args[i] + " is not a port number\n");
+					System.exit(1);
+				}
+			} else if (args[i].equals("--cache") && i + 1 < args.length) {
+				try {
+					cacheSize = Integer.parseInt(args[++i]);
+				} catch (NumberFormatException e) {
+					cacheSize = -1;
+				}
+				if (cacheSize < 0) {
+					System.err.println("Error: " + args[i] + " is not a number of cached searches\n");
+					System.exit(1);
+				}
+			} else if (args[i].equals("--batch") && i + 1 < args.length) {
+				batch = args[++i];
+			} else {
+				System.err.println("Error: unknown option " + args[i] + "\n");
+				System.exit(1);
+			}
+		}
+		if (Metrics.ENABLED) {
+			try {
+				Metrics.register();
+			} catch (IllegalStateException e) {
+				System.err.println("Error: metrics cannot be registered with JMX\n");
+			}
+		}
+		SpeciesList list = null;
+		File snapshot = CatalogSnapshot.snapshotFile(input);
+		
+		boolean stale = useSnapshot;
 		
 		try {
-			sc = new Scanner (input) ;
-		} catch (FileNotFoundException e) {
+			if (useSnapshot)
+				list = CatalogSnapshot.read(snapshot, input);
+			if (list == null)
+				list = SpeciesLoader.load(input);
+			else
+				stale = false;
+		} catch (IOException e) {
 			System.err.println("Error: the file " + input.getAbsolutePath() + " cannot be read.\n"); 
 			System.exit(1);
 		}
-		
-		SpeciesList list = new SpeciesList();
-		String line = null;
-		Scanner parse = null;
-		String county = null;
-		String category = null;
-		String taxonomicGroup = null;
-		String taxonomicSubGroup = null;
-	    String scientificName = null;
-	    String commonName = null;
-	    String NYListingStatus = null;
-	    Species current = null;
-	    sc.nextLine(); // skip the column headings
-		
-	    while (sc.hasNextLine()) {
+		if (stale) {
 			try {
-				// put each line into new scanner and change delimiter
-				line = sc.nextLine(); 
-				parse = new Scanner(line);
-				parse.useDelimiter(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
-				// Pattern inspired by Selphiron on StackOverflow
-				// https://stackoverflow.com/questions/40770990/split-string-by-comma-but-ignore-commas-in-brackets-or-in-quotes
-				
-				// set fields
-				county = parse.next();
-				category = parse.next();
-				taxonomicGroup = parse.next();
-				taxonomicSubGroup = parse.next();
-				scientificName = parse.next();
-				commonName = parse.next();
-				parse.next(); // skip Year Last Documented
-				NYListingStatus = parse.next();
-				
-				if (county == null || county.equals("")) // ignores a set that doensn't have a valid county
-					continue;
-			} catch(NoSuchElementException e) {
-				System.err.println(line);
-				continue;
+				CatalogSnapshot.write(list, input, snapshot);
+			} catch (IOException e) {
+				// the snapshot only speeds up the next run, so the program can go on without it
+				System.err.println("Error: the snapshot " + snapshot.getAbsolutePath() + " cannot be written.\n");
 			}
-			
+		}
+		
+		// searches read the current version of the catalog; a reload publishes a new one
+		SpeciesCatalog catalog = new SpeciesCatalog(list, cacheSize);
+		SpeciesServer server = null;
+		if (port >= 0) {
 			try {
-				current = new Species(category, taxonomicGroup, taxonomicSubGroup, scientificName,
-						commonName, NYListingStatus);
-				list.add(current, county);
-			} catch (IllegalArgumentException ex) {
-				// catches if any of the inputs are null or empty strings, and ignores it and moves on, as per
-				// instructions.
+				server = new SpeciesServer(catalog, port);
+				server.start();
+				System.out.println("Serving searches on port " + server.getPort());
+			} catch (IOException | IllegalArgumentException e) {
+				System.err.println("Error: cannot serve searches on port " + port + "\n");
+				System.exit(1);
+			}
+		}
+		
+		if (batch != null) {
+			// batch mode: run the searches in the file instead of reading them from the user
+			// queries and results are UTF-8, like the data set, whatever the default charset of the platform
+			try (Reader queries = batch.equals("-") ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+					: new FileReader(batch, StandardCharsets.UTF_8)) {
+				Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+				new BatchSearch(catalog, Runtime.getRuntime().availableProcessors()).run(queries, out);
+			} catch (IOException e) {
+				System.err.println("Error: the batch " + batch + " cannot be run: " + e.getMessage() + "\n");
+				System.exit(1);
 			}
-		}	
+			if (server != null)
+				server.stop(1);
+			return;
+		}
+		
 		//interactive mode:
 		Scanner userInput  = new Scanner(System.in); 
 		String userValue = "";
 		do {
-			System.out.println("Search for a species. Type \"quit\" to stop.");
+			System.out.println("Search for a species, or end a search with * to list names starting with it. Type \"quit\" to stop.");
+			if (!userInput.hasNextLine())
+				break; // end of input; a running server keeps serving
 			userValue = userInput.nextLine();
-			if (!userValue.equalsIgnoreCase("quit")) {
+			list = catalog.get();
+			if (userValue.equalsIgnoreCase("reload")) {
+				// apply the changes in the file since it was loaded
+				CatalogDiff diff = null;
+				try {
+					diff = catalog.reload(SpeciesLoader.load(input));
+					System.out.println("Reloaded " + input.getName() + ": " + diff);
+				} catch (IOException e) {
+					System.err.println("Error: the file " + input.getAbsolutePath() + " cannot be read.\n");
+				}
+				if (useSnapshot && diff != null && !diff.isEmpty()) {
+					try {
+						CatalogSnapshot.write(catalog.get(), input, snapshot);
+					} catch (IOException e) {
+						// the reloaded catalog is published already; only the next start is slower
+						System.err.println("Error: the snapshot " + snapshot.getAbsolutePath() + " cannot be written.\n");
+					}
+				}
+			} else if (userValue.equalsIgnoreCase("metrics")) {
+				System.out.print(Metrics.report());
+				System.out.println("Query cache: " + catalog.getCache());
+			} else if (userValue.equalsIgnoreCase("stats")) {
+				SpeciesAggregation totals = catalog.aggregate(new SpeciesQuery(), SUGGESTIONS);
+				System.out.println(totals);
+				System.out.println("Species per taxonomic group: " + totals.countBy(SpeciesAttribute.TAXONOMIC_GROUP));
+				System.out.println("Richest counties: " + totals.topCounties(SUGGESTIONS));
+				System.out.println("Most widespread species:");
+				for (Species s : totals.getMostWidespread()) {
+					System.out.println(s + "\n");
+				}
+			} else if (!userValue.equalsIgnoreCase("quit")) {
 				try {
-					SpeciesList result = list.getByName(userValue);
+					SpeciesList result;
+					String name = userValue;
+					if (userValue.endsWith("*")) { // complete the names that start with the input
+						name = userValue.substring(0, userValue.length() - 1);
+						result = list.autocomplete(name, SUGGESTIONS);
+					} else
+						result = catalog.getByName(userValue);
 					if (result == null) {
 						System.out.println("No matching species found.");
+						ArrayList<Species> similar = list.getByNameFuzzy(name, FUZZY_DISTANCE);
+						if (similar != null) {
+							System.out.println("Did you mean:");
+							for (int i = 0; i < similar.size() && i < SUGGESTIONS; i++) {
+								System.out.println(similar.get(i) + "\n");
+							}
+						}
 						continue;
 					}	
 					for (Species s : result) {
@@ -113,6 +227,8 @@ public class NYSpecies {
 		} while(!userValue.equalsIgnoreCase("quit"));
 		
 		userInput.close();
+		if (server != null && userValue.equalsIgnoreCase("quit"))
+			server.stop(1);
 	}
 	
 }
\ No newline at end of file
@@ -0,0 +1,322 @@
+package project3;
+import java.util.Arrays;
+import java.util.HashMap;
+/**
+ * This class is an inverted trigram index over the case-folded common and scientific names (see Species.fold()) of
+ * a sorted array of Species objects. Each species is identified by its ordinal, its index in the array.
+ * For every sequence of three consecutive characters (trigram) in either name of a species, the index keeps a
+ * posting list: the ascending ordinals of the species with that trigram in one of their names.
+ * A keyword of three or more characters can only be contained in the names of the species present in the posting
+ * lists of all of its trigrams, so a search intersects those lists and only checks the remaining candidates.
+ * The folded names are the ones each Species computed when it was constructed, so the index copies no name, and
+ * checking a candidate is a search for the keyword within them that allocates nothing.
+ * @author Adam Soliman
+ * @version 3-6-24
+ */
+class NameIndex {
+
+	private static final int[] EMPTY = new int[0];
+
+	private final Species[] species;
+	private final String[] commonNames; // folded names of each species, shared with the species
+	private final String[] scientificNames;
+	private final HashMap<Long, int[]> postings;
+
+	/**
+	 * Constructs the index over the specified species.
+	 * @param species	species in ascending order; the array is kept by the index and must not be modified.
+	 */
+	NameIndex(Species[] species) {
+		this.species = species;
+		commonNames = new String[species.length];
+		scientificNames = new String[species.length];
+		HashMap<Long, IntList> lists = new HashMap<>();
+		for (int i = 0; i < species.length; i++) {
+			commonNames[i] = species[i].commonKey();
+			scientificNames[i] = species[i].scientificKey();
+			addTrigrams(lists, commonNames[i], i);
+			addTrigrams(lists, scientificNames[i], i);
+		}
+		postings = new HashMap<>(lists.size() * 2);
+		for (HashMap.Entry<Long, IntList> e : lists.entrySet()) {
+			postings.put(e.getKey(), e.getValue().toArray());
+		}
+	}
+
+	/**
+	 * Returns the number of species in this index.
+	 * @return	number of species indexed.
+	 */
+	int size() { return species.length; }
+
+	/**
+	 * Returns the species with the specified ordinal.
+	 * @param ordinal	index of the species in the sorted array.
+	 * @return	the species with the ordinal.
+	 */
+	Species get(int ordinal) { return species[ordinal]; }
+
+	/**
+	 * Returns the ordinals, in ascending order, of the species whose common name or scientific name contains
+	 * the specified folded keyword.
+	 * @param key	folded keyword to search for.
+	 * @return	ascending ordinals of the matching species.
+	 */
+	int[] search(String key) {
+		if (key.length() < 3) {
+			// too short for a trigram; check every species
+			return verify(null, species.length, key);
+		}
+		int n = key.length() - 2;
+		int[][] lists = new int[n][];
+		for (int i = 0; i < n; i++) {
+			int[] list = postings.get(trigram(key, i));
+			if (list == null) {
+				return EMPTY;
+			}
+			lists[i] = list;
+		}
+		// intersect the shortest lists first, so the candidate set shrinks as fast as possible
+		Arrays.sort(lists, (a, b) -> Integer.compare(a.length, b.length));
+		int[] candidates = lists[0];
+		int count = candidates.length;
+		for (int i = 1; i < n && count > 0; i++) {
+			if (lists[i] != lists[i - 1]) {
+				if (candidates == lists[0]) {
+					candidates = candidates.clone();
+				}
+				count = intersect(candidates, count, lists[i]);
+			}
+		}
+		return verify(candidates, count, key);
+	}
+
+	/**
+	 * Returns a cursor over the ordinals, in ascending order, of the species whose common name or scientific name
+	 * contains the specified folded keyword. Unlike search(), the cursor finds each match only when it is asked
+	 * for the next one, so reading the first few matches of a keyword that matches most species is fast.
+	 * @param key	folded keyword to search for.
+	 * @return	a cursor over the ascending ordinals of the matching species.
+	 */
+	Cursor cursor(String key) {
+		if (key.length() < 3) {
+			return new Cursor(key, null);
+		}
+		int n = key.length() - 2;
+		int[][] lists = new int[n][];
+		for (int i = 0; i < n; i++) {
+			lists[i] = postings.get(trigram(key, i));
+			if (lists[i] == null) {
+				return new Cursor(key, new int[][] { EMPTY });
+			}
+		}
+		Arrays.sort(lists, (a, b) -> Integer.compare(a.length, b.length));
+		return new Cursor(key, lists);
+	}
+
+	/**
+	 * A cursor over the matches of one keyword. Without posting lists it checks every species in order; otherwise
+	 * it walks the shortest posting list and skips ahead in the others to the next ordinal they all share,
+	 * checking only the names of those candidates.
+	 */
+	class Cursor {
+		private final String key;
+		private final int[][] lists; // ascending by length, or null to check every species
+		private final int[] positions;
+		private int next = 0; // next ordinal to check when there are no posting lists
+
+		/**
+		 * Constructs a cursor before the first match.
+		 * @param key	folded keyword.
+		 * @param lists	posting lists of the trigrams of the keyword, shortest first, or null.
+		 */
+		private Cursor(String key, int[][] lists) {
+			this.key = key;
+			this.lists = lists;
+			positions = lists == null ? null : new int[lists.length];
+		}
+
+		/**
+		 * Returns the ordinal of the next matching species.
+		 * @return	the next ordinal, or -1 if there are no more matches.
+		 */
+		int next() {
+			if (lists == null) {
+				while (next < species.length) {
+					int o = next++;
+					if (matches(o))
+						return o;
+				}
+				return -1;
+			}
+			int o;
+			while ((o = candidate()) >= 0) {
+				positions[0]++;
+				if (matches(o))
+					return o;
+			}
+			return -1;
+		}
+
+		/**
+		 * Advances every posting list to the next ordinal they all contain, without consuming it.
+		 * @return	the candidate ordinal, or -1 if the shortest list is exhausted.
+		 */
+		private int candidate() {
+			int[] first = lists[0];
+			while (positions[0] < first.length) {
+				int o = first[positions[0]];
+				boolean all = true;
+				for (int i = 1; i < lists.length && all; i++) {
+					int p = seek(lists[i], positions[i], o);
+					positions[i] = p;
+					if (p == lists[i].length)
+						return -1;
+					if (lists[i][p] != o) {
+						// skip the shortest list ahead to the first ordinal this list could share
+						positions[0] = seek(first, positions[0], lists[i][p]);
+						all = false;
+					}
+				}
+				if (all)
+					return o;
+			}
+			return -1;
+		}
+
+		/**
+		 * Checks whether the common name or scientific name of a species contains the keyword.
+		 * @param o	ordinal of the species.
+		 * @return	true if the species matches, false otherwise.
+		 */
+		private boolean matches(int o) {
+			return commonNames[o].contains(key) || scientificNames[o].contains(key);
+		}
+	}
+
+	/**
+	 * Finds the first position, at or after from, of an ascending list whose value is at least the target,
+	 * probing exponentially growing steps before a binary search.
+	 * @param list	ascending ordinals.
+	 * @param from	position to start from.
+	 * @param target	ordinal to seek.
+	 * @return	the position of the first value at least the target, or the length of the list if there is none.
+	 */
+	private static int seek(int[] list, int from, int target) {
+		if (from >= list.length || list[from] >= target)
+			return from;
+		int step = 1;
+		int low = from;
+		int high = from + 1;
+		while (high < list.length && list[high] < target) {
+			low = high;
+			step <<= 1;
+			high = from + step;
+		}
+		high = Math.min(high, list.length);
+		// list[low] < target, and list[high] >= target if high < length
+		while (low + 1 < high) {
+			int mid = (low + high) >>> 1;
+			if (list[mid] < target)
+				low = mid;
+			else
+				high = mid;
+		}
+		return high;
+	}
+
+	/**
+	 * Keeps the candidates whose common name or scientific name contains the keyword.
+	 * @param candidates	ascending candidate ordinals, or null to check every ordinal below count.
+	 * @param count	number of candidates.
+	 * @param key	folded keyword.
+	 * @return	ascending ordinals of the matching candidates.
+	 */
+	private int[] verify(int[] candidates, int count, String key) {
+		int[] matches = new int[count];
+		int m = 0;
+		for (int i = 0; i < count; i++) {
+			int o = candidates == null ? i : candidates[i];
+			if (commonNames[o].contains(key) || scientificNames[o].contains(key)) {
+				matches[m++] = o;
+			}
+		}
+		return m == count ? matches : Arrays.copyOf(matches, m);
+	}
+
+	/**
+	 * Intersects the first count entries of a with b, storing the result at the start of a.
+	 * @param a	ascending ordinals, overwritten with the intersection.
+	 * @param count	number of entries of a to use.
+	 * @param b	ascending ordinals.
+	 * @return	the number of ordinals in the intersection.
+	 */
+	private static int intersect(int[] a, int count, int[] b) {
+		int i = 0;
+		int j = 0;
+		int k = 0;
+		while (i < count && j < b.length) {
+			if (a[i] < b[j]) {
+				i++;
+			} else if (a[i] > b[j]) {
+				j++;
+			} else {
+				a[k++] = a[i];
+				i++;
+				j++;
+			}
+		}
+		return k;
+	}
+
+	/**
+	 * Adds the ordinal to the posting list of every trigram of the name.
+	 * @param lists	posting lists being built.
+	 * @param name	folded name.
+	 * @param ordinal	ordinal of the species with this name.
+	 */
+	private static void addTrigrams(HashMap<Long, IntList> lists, String name, int ordinal) {
+		for (int i = 0; i + 3 <= name.length(); i++) {
+			lists.computeIfAbsent(trigram(name, i), k -> new IntList()).addOnce(ordinal);
+		}
+	}
+
+	/**
+	 * Packs the three characters of s starting at index i into one key.
+	 * @param s	input String.
+	 * @param i	index of the first character.
+	 * @return	the trigram key.
+	 */
+	private static long trigram(String s, int i) {
+		return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+	}
+
+	/**
+	 * A growable list of ascending ints, used while the posting lists are built.
+	 */
+	private static class IntList {
+		private int[] data = new int[4];
+		private int size = 0;
+
+		/**
+		 * Appends the value unless it is already the last value in the list.
+		 * @param value	value to append, not smaller than the last value.
+		 */
+		void addOnce(int value) {
+			if (size > 0 && data[size - 1] == value)
+				return;
+			if (size == data.length)
+				data = Arrays.copyOf(data, size * 2);
+			data[size++] = value;
+		}
+
+		/**
+		 * Returns the values as an array of exactly the right length.
+		 * @return	array of the values in this list.
+		 */
+		int[] toArray() {
+			return Arrays.copyOf(data, size);
+		}
+	}
+
+}
@@ -0,0 +1,200 @@
+package project3;
+import java.util.ArrayList;
+import java.util.Arrays;
+/**
+ * This class is a radix tree (compressed trie) over the case-folded common and scientific names of a sorted array of
+ * Species objects, used to complete names from a prefix. Each species is identified by its ordinal, its index in
+ * the array.
+ * Every node of the tree keeps the smallest ordinals in its subtree, up to a fixed capacity, so the first matches
+ * for a prefix are found by walking the prefix alone. Memory is bounded by that capacity per node, and the number of
+ * nodes is at most twice the number of names. Asking for more matches than a node keeps falls back to walking the
+ * subtree of the prefix.
+ * @author Adam Soliman
+ * @version 3-6-24
+ */
+class PrefixTrie {
+
+	/**
+	 * Number of ordinals kept in each node.
+	 */
+	static final int CAPACITY = 16;
+
+	private final Species[] species;
+	private final Node root = new Node("");
+
+	/**
+	 * A node of the radix tree. The label holds the characters on the edge from the parent to this node.
+	 */
+	private static class Node {
+		String label;
+		char[] firsts = new char[0]; // first character of each child's label, in ascending order
+		Node[] children = new Node[0];
+		int[] top = new int[CAPACITY];
+		int topCount = 0;
+		int[] ends; // ordinals of the names that end at this node
+		int endCount = 0;
+
+		Node(String label) {
+			this.label = label;
+		}
+
+		/**
+		 * Records an ordinal of the subtree. Ordinals are added in ascending order, so the first CAPACITY distinct
+		 * ordinals are the smallest ones.
+		 * @param ordinal	ordinal of a species whose name passes through this node.
+		 */
+		void addTop(int ordinal) {
+			if (topCount < CAPACITY && (topCount == 0 || top[topCount - 1] != ordinal)) {
+				top[topCount++] = ordinal;
+			}
+		}
+
+		/**
+		 * Records the ordinal of a name that ends at this node.
+		 * @param ordinal	ordinal of the species with that name.
+		 */
+		void addEnd(int ordinal) {
+			if (ends == null) {
+				ends = new int[1];
+			} else if (endCount == ends.length) {
+				ends = Arrays.copyOf(ends, endCount * 2);
+			}
+			ends[endCount++] = ordinal;
+		}
+
+		/**
+		 * Returns the child whose label starts with the specified character.
+		 * @param c	first character of the label.
+		 * @return	index of the child, or a negative value if there is none, as returned by Arrays.binarySearch.
+		 */
+		int find(char c) {
+			return Arrays.binarySearch(firsts, c);
+		}
+
+		/**
+		 * Inserts a child at the position returned by a failed find().
+		 * @param at	negative value returned by find().
+		 * @param child	node to insert.
+		 */
+		void insert(int at, Node child) {
+			int i = -at - 1;
+			char[] f = new char[firsts.length + 1];
+			Node[] c = new Node[children.length + 1];
+			System.arraycopy(firsts, 0, f, 0, i);
+			System.arraycopy(children, 0, c, 0, i);
+			f[i] = child.label.charAt(0);
+			c[i] = child;
+			System.arraycopy(firsts, i, f, i + 1, firsts.length - i);
+			System.arraycopy(children, i, c, i + 1, children.length - i);
+			firsts = f;
+			children = c;
+		}
+	}
+
+	/**
+	 * Constructs the tree over the names of the specified species.
+	 * @param species	species in ascending order; the array is kept by the tree and must not be modified.
+	 */
+	PrefixTrie(Species[] species) {
+		this.species = species;
+		for (int i = 0; i < species.length; i++) {
+			add(species[i].commonKey(), i);
+			add(species[i].scientificKey(), i);
+		}
+	}
+
+	/**
+	 * Adds a name to the tree.
+	 * @param name	folded name.
+	 * @param ordinal	ordinal of the species with this name.
+	 */
+	private void add(String name, int ordinal) {
+		Node node = root;
+		node.addTop(ordinal);
+		int i = 0;
+		while (i < name.length()) {
+			int at = node.find(name.charAt(i));
+			if (at < 0) {
+				Node leaf = new Node(name.substring(i));
+				leaf.addTop(ordinal);
+				leaf.addEnd(ordinal);
+				node.insert(at, leaf);
+				return;
+			}
+			Node child = node.children[at];
+			int common = 1;
+			while (common < child.label.length() && i + common < name.length()
+					&& child.label.charAt(common) == name.charAt(i + common)) {
+				common++;
+			}
+			if (common < child.label.length()) {
+				// split the edge, so that the name ends or branches at the new middle node
+				Node mid = new Node(child.label.substring(0, common));
+				mid.top = child.top.clone();
+				mid.topCount = child.topCount;
+				child.label = child.label.substring(common);
+				mid.firsts = new char[] { child.label.charAt(0) };
+				mid.children = new Node[] { child };
+				node.children[at] = mid;
+				child = mid;
+			}
+			child.addTop(ordinal);
+			node = child;
+			i += common;
+		}
+		node.addEnd(ordinal);
+	}
+
+	/**
+	 * Returns the first k species, in ascending order, whose common name or scientific name starts with the
+	 * specified folded prefix.
+	 * @param prefix	folded prefix.
+	 * @param k	maximum number of species to return.
+	 * @return	the matching species in ascending order, at most k of them.
+	 */
+	Species[] complete(String prefix, int k) {
+		Node node = root;
+		int i = 0;
+		while (i < prefix.length()) {
+			int at = node.find(prefix.charAt(i));
+			if (at < 0) {
+				return new Species[0];
+			}
+			node = node.children[at];
+			int m = Math.min(node.label.length(), prefix.length() - i);
+			if (!node.label.regionMatches(0, prefix, i, m)) {
+				return new Species[0];
+			}
+			i += m;
+		}
+		int[] ordinals = node.top;
+		int n = Math.min(k, node.topCount);
+		if (k > node.topCount && node.topCount == CAPACITY) {
+			// more matches were asked for than a node keeps; collect the whole subtree
+			ArrayList<Integer> all = new ArrayList<>();
+			collect(node, all);
+			ordinals = all.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+			n = Math.min(k, ordinals.length);
+		}
+		Species[] result = new Species[n];
+		for (int j = 0; j < n; j++) {
+			result[j] = species[ordinals[j]];
+		}
+		return result;
+	}
+
+	/**
+	 * Adds the ordinals of every name that ends in a subtree to the list.
+	 * @param node	root of the subtree.
+	 * @param all	list receiving the ordinals.
+	 */
+	private static void collect(Node node, ArrayList<Integer> all) {
+		for (int j = 0; j < node.endCount; j++) {
+			all.add(node.ends[j]);
+		}
+		for (Node child : node.children) {
+			collect(child, all);
+		}
+	}
+
+}
@@ -0,0 +1,121 @@
+package project3;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+/**
+ * This class is a bounded cache of search results, keyed by a normalized description of the search, which evicts
+ * the least recently used result once it holds as many results as its capacity. A search with no matches is cached
+ * too, as an empty array, so repeated misses are as cheap as repeated hits.
+ * A cache holds the results of one version of a SpeciesCatalog, and is replaced along with the version, so it never
+ * returns results of an older version. It is safe for use by several threads.
+ * @author Adam Soliman
+ * @version 3-6-24
+ */
+public class QueryCache {
+
+	/**
+	 * Number of results a catalog caches by default.
+	 */
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	private final int capacity;
+	private final LinkedHashMap<String, Species[]> results;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Constructs an empty cache.
+	 * @param capacity	largest number of results held; 0 disables caching.
+	 * @throws IllegalArgumentException	if the capacity is negative.
+	 */
+	public QueryCache(int capacity) throws IllegalArgumentException {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Capacity cannot be negative");
+		}
+		this.capacity = capacity;
+		// access order, so the eldest entry is the least recently used one
+		results = new LinkedHashMap<String, Species[]>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Species[]> eldest) {
+				return size() > QueryCache.this.capacity;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached result of a search, counting a hit or a miss.
+	 * @param key	normalized description of the search.
+	 * @return	the matching species in ascending order, an empty array if the search had no matches, or null if
+	 * 			the result is not cached.
+	 */
+	Species[] get(String key) {
+		Species[] result;
+		synchronized (results) {
+			result = results.get(key);
+		}
+		if (result == null) {
+			misses.increment();
+			if (Metrics.ENABLED)
+				Metrics.CACHE_MISSES.increment();
+		} else {
+			hits.increment();
+			if (Metrics.ENABLED)
+				Metrics.CACHE_HITS.increment();
+		}
+		return result;
+	}
+
+	/**
+	 * Caches the result of a search, evicting the least recently used result if the cache is full.
+	 * @param key	normalized description of the search.
+	 * @param result	the matching species in ascending order, or an empty array if there are none; the array must
+	 * 			not be modified afterwards.
+	 */
+	void put(String key, Species[] result) {
+		if (capacity == 0)
+			return;
+		synchronized (results) {
+			results.put(key, result);
+		}
+	}
+
+	/**
+	 * Returns the largest number of results this cache holds.
+	 * @return	the capacity of the cache.
+	 */
+	public int getCapacity() { return capacity; }
+
+	/**
+	 * Returns the number of results this cache holds.
+	 * @return	the number of cached results.
+	 */
+	public int size() {
+		synchronized (results) {
+			return results.size();
+		}
+	}
+
+	/**
+	 * Returns the number of searches answered from this cache.
+	 * @return	the number of hits.
+	 */
+	public long getHits() { return hits.sum(); }
+
+	/**
+	 * Returns the number of searches this cache could not answer.
+	 * @return	the number of misses.
+	 */
+	public long getMisses() { return misses.sum(); }
+
+	/**
+	 * Returns a summary of the statistics of this cache.
+	 * @return	the numbers of results, hits and misses.
+	 */
+	@Override
+	public String toString() {
+		return String.format("%d/%d results cached, %d hits, %d misses", size(), capacity, getHits(), getMisses());
+	}
+
+}
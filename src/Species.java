@@ -1,5 +1,6 @@
 package project3;
 import java.util.ArrayList;
+import java.util.Arrays;
 /**
  * This class represents a Species object. A valid Species object has a category, taxonomic group, taxonomic sub group,
  * scientific name, common name, and NY listing status.
@@ -17,7 +18,13 @@ public class Species implements Comparable<Species> {
     private String scientificName;
     private String commonName;
     private String NYListingStatus;
-    ArrayList<String> counties = new ArrayList<>();
+    // bit i is set if the species is present in the county with ID i (see Counties)
+    private long counties;
+    private long[] moreCounties; // bits for county IDs 64 and up, null unless needed
+    // names with their case folded as compareToIgnoreCase() folds it, and the hash code, computed once
+    private final String commonKey;
+    private final String scientificKey;
+    private final int hash;
 	
 	/**
 	 * Six argument constructor for the Species class: constructs a new Species object with specified fields.
@@ -45,13 +52,22 @@ public class Species implements Comparable<Species> {
 				|| commonName.equals("") || NYListingStatus.equals("")) {
 			throw new IllegalArgumentException("Arguments cannot be empty strings");
 		} else {
-			this.category = category;
-			this.taxonomicGroup = taxonomicGroup;
-			this.taxonomicSubGroup = taxonomicSubGroup;
+			// values repeated across many species are shared through their dictionaries
+			this.category = Dictionary.of(SpeciesAttribute.CATEGORY).intern(category);
+			this.taxonomicGroup = Dictionary.of(SpeciesAttribute.TAXONOMIC_GROUP).intern(taxonomicGroup);
+			this.taxonomicSubGroup = Dictionary.of(SpeciesAttribute.TAXONOMIC_SUBGROUP).intern(taxonomicSubGroup);
 			this.scientificName = scientificName;
 			this.commonName = commonName;
-			this.NYListingStatus = NYListingStatus;
+			this.NYListingStatus = Dictionary.of(SpeciesAttribute.NY_LISTING_STATUS).intern(NYListingStatus);
 		}
+		commonKey = fold(commonName);
+		scientificKey = fold(scientificName);
+		int h = commonKey.hashCode();
+		h = 31 * h + scientificKey.hashCode();
+		h = 31 * h + foldedHash(this.taxonomicGroup);
+		h = 31 * h + foldedHash(this.taxonomicSubGroup);
+		h = 31 * h + foldedHash(this.category);
+		hash = h;
 	}
 	
 	// Getters for the fields of the Species class
@@ -94,16 +110,18 @@ public class Species implements Comparable<Species> {
 
 	/**
 	 * Compares this object with the specified object for order. Implemented from the Comparable<> interface.
-	 * Species objects are compared by common name first, and then if equal, compared by scientific name.
+	 * Species objects are compared by common name first, and then if equal, compared by scientific name, ignoring
+	 * case. The names are compared through keys with their case folded once when the species is constructed, which
+	 * order the same way compareToIgnoreCase() orders the names.
 	 * @param o	the object to be compared.
 	 * @return a negative integer, zero, or a positive integer as this object is less than, equal to, 
 	 * or greater than the specified object.
 	 */
 	@Override
 	public int compareTo(Species o) {
-		int a = this.getCommonName().compareToIgnoreCase(o.getCommonName());	
+		int a = this.commonKey.compareTo(o.commonKey);
 		if (a == 0)
-			a = this.getScientificName().compareToIgnoreCase(o.getScientificName());
+			a = this.scientificKey.compareTo(o.scientificKey);
 		
 		return a;
 	}
@@ -116,7 +134,7 @@ public class Species implements Comparable<Species> {
 		return String.format(
 		"%s (%s)\n%s, %s\n%s\nPresent in %d / 62 counties", 
 		getCommonName(), getScientificName(), getTaxonomicGroup(), getTaxonomicSubGroup(), getNYListingStatus(),
-		counties.size());
+		countyCount());
 	}
 	
 	/**
@@ -134,26 +152,98 @@ public class Species implements Comparable<Species> {
 			return false;
 		
 		Species o = (Species) obj;
-		if (!this.getCommonName().equalsIgnoreCase(o.getCommonName()))
+		if (this.hash != o.hash)
 			return false;
 		
-		if (!this.getTaxonomicGroup().equalsIgnoreCase(o.getTaxonomicGroup()))
+		if (!this.commonKey.equals(o.commonKey))
 			return false;
 		
-		if (!this.getScientificName().equalsIgnoreCase(o.getScientificName()))
+		if (!sameIgnoringCase(this.getTaxonomicGroup(), o.getTaxonomicGroup()))
 			return false;
 		
-		if (!this.getTaxonomicSubGroup().equalsIgnoreCase(o.getTaxonomicSubGroup()))
+		if (!this.scientificKey.equals(o.scientificKey))
 			return false;
 		
-		if (!this.getCategory().equalsIgnoreCase(o.getCategory()))
+		if (!sameIgnoringCase(this.getTaxonomicSubGroup(), o.getTaxonomicSubGroup()))
+			return false;
+		
+		if (!sameIgnoringCase(this.getCategory(), o.getCategory()))
 			return false;	
 		
 		return true;
 	}
+	
+	/**
+	 * Returns a hash code for this species, consistent with equals(): the common name, scientific name,
+	 * taxonomic group, taxonomic subgroup and category are hashed ignoring case. The hash is computed once, when the
+	 * species is constructed.
+	 * @return	the hash code of this species.
+	 */
+	@Override
+	public int hashCode() { return hash; }
+	
+	/**
+	 * Returns the common name of this species with its case folded by fold(), computed when it was constructed.
+	 * @return	the folded common name.
+	 */
+	String commonKey() { return commonKey; }
+	
+	/**
+	 * Returns the scientific name of this species with its case folded by fold(), computed when it was constructed.
+	 * @return	the folded scientific name.
+	 */
+	String scientificKey() { return scientificKey; }
+	
+	/**
+	 * Checks if two attribute values are equal ignoring case. Values shared through a Dictionary are usually the
+	 * same String, which is checked first.
+	 * @param a	first value.
+	 * @param b	second value.
+	 * @return	true if the values are equal ignoring case, false otherwise.
+	 */
+	private static boolean sameIgnoringCase(String a, String b) {
+		return a == b || a.equalsIgnoreCase(b);
+	}
+	
+	/**
+	 * Folds the case of a String the way compareToIgnoreCase() and equalsIgnoreCase() fold it, so that two Strings
+	 * are equal ignoring case if and only if their folded Strings are equal, and folded Strings compare in the order
+	 * of compareToIgnoreCase().
+	 * Searches fold their keywords with this method, so that they match the folded names of species the same way
+	 * equals() compares them.
+	 * @param s	input String
+	 * @return	the String with each character folded, or s itself if no character changes.
+	 */
+	static String fold(String s) {
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (Character.toLowerCase(Character.toUpperCase(c)) != c) {
+				char[] folded = s.toCharArray();
+				for (int j = i; j < folded.length; j++) {
+					folded[j] = Character.toLowerCase(Character.toUpperCase(folded[j]));
+				}
+				return new String(folded);
+			}
+		}
+		return s;
+	}
+	
+	/**
+	 * Hashes a String the same way equalsIgnoreCase() compares it, so that Strings equal ignoring case
+	 * always produce the same hash: the same hash as its folded String.
+	 * @param s	input String
+	 * @return	case-insensitive hash of the String.
+	 */
+	private static int foldedHash(String s) {
+		int h = 0;
+		for (int i = 0; i < s.length(); i++) {
+			h = 31 * h + Character.toLowerCase(Character.toUpperCase(s.charAt(i)));
+		}
+		return h;
+	}
 
 	/**
-	 * Returns true or false to indicate if the species is present in the specified county.
+	 * Returns true or false to indicate if the species is present in the specified county, ignoring case.
 	 * @param county	input county
 	 * @return	true if the species is present in the input county; false otherwise.
 	 * @throws IllegalArgumentException	if the input county is null or empty.
@@ -162,12 +252,20 @@ public class Species implements Comparable<Species> {
 		if (county == null || county.equals("")) {
 			throw new IllegalArgumentException("Null/empty strings are not allowed");
 		}	
-		for (String s : counties) {
-			if (s.equals(county))
-				return true;
-		}
-		
-		return false;
+		int id = Counties.idOf(county);
+		return id >= 0 && isPresentIn(id);
+	}
+	
+	/**
+	 * Returns true or false to indicate if the species is present in the county with the specified ID.
+	 * @param id	county ID, as assigned by Counties.
+	 * @return	true if the species is present in the county; false otherwise.
+	 */
+	boolean isPresentIn(int id) {
+		if (id < 64)
+			return (counties & (1L << id)) != 0;
+		int word = (id >> 6) - 1;
+		return moreCounties != null && word < moreCounties.length && (moreCounties[word] & (1L << id)) != 0;
 	}
 	
 	/**
@@ -175,25 +273,130 @@ public class Species implements Comparable<Species> {
 	 * @param county	input county
 	 * @return	true if the species was not already listed in this county; false if the county was already
 	 * 			listed in this species' list of counties.
-	 * @throws IllegalArgumentException
+	 * @throws IllegalArgumentException	if the input county is null or empty.
 	 */
 	protected boolean addCounty(String county) throws IllegalArgumentException {
-		if (county == null || county.equals("")) {
-			throw new IllegalArgumentException("Null/empty strings are not allowed");
+		return addCounty(Counties.intern(county));
+	}
+	
+	/**
+	 * Adds the county with the specified ID to the counties in which the species is present.
+	 * @param id	county ID, as assigned by Counties.
+	 * @return	true if the species was not already listed in this county; false otherwise.
+	 */
+	boolean addCounty(int id) {
+		if (isPresentIn(id))
+			return false;
+		if (id < 64) {
+			counties |= 1L << id;
+		} else {
+			int word = (id >> 6) - 1;
+			if (moreCounties == null)
+				moreCounties = new long[word + 1];
+			else if (word >= moreCounties.length)
+				moreCounties = Arrays.copyOf(moreCounties, word + 1);
+			moreCounties[word] |= 1L << id;
+		}
+		return true;
+	}
+	
+	/**
+	 * Adds every county of the specified species to the counties in which this species is present.
+	 * @param other	species whose counties are merged into this one.
+	 */
+	void addCounties(Species other) {
+		counties |= other.counties;
+		if (other.moreCounties != null) {
+			if (moreCounties == null)
+				moreCounties = new long[other.moreCounties.length];
+			else if (moreCounties.length < other.moreCounties.length)
+				moreCounties = Arrays.copyOf(moreCounties, other.moreCounties.length);
+			for (int i = 0; i < other.moreCounties.length; i++) {
+				moreCounties[i] |= other.moreCounties[i];
+			}
+		}
+	}
+	
+	/**
+	 * Returns the smallest ID, at or above the specified one, of a county in which this species is present.
+	 * @param from	first county ID to check.
+	 * @return	the ID of the next county of this species, or -1 if there is none.
+	 */
+	int nextCounty(int from) {
+		if (from < 64) {
+			long w = counties & (-1L << from);
+			if (w != 0)
+				return Long.numberOfTrailingZeros(w);
+			from = 64;
 		}
-		if (this.isPresentIn(county))
+		if (moreCounties == null)
+			return -1;
+		for (int word = (from >> 6) - 1; word < moreCounties.length; word++) {
+			long w = moreCounties[word];
+			if (word == (from >> 6) - 1)
+				w &= -1L << from;
+			if (w != 0)
+				return ((word + 1) << 6) + Long.numberOfTrailingZeros(w);
+		}
+		return -1;
+	}
+	
+	/**
+	 * Returns the bits of the county set of this species, bit i of word i / 64 being set if the species is present
+	 * in the county with ID i.
+	 * @return	a new array of the county bits, holding at least one word.
+	 */
+	long[] countyBits() {
+		long[] bits = new long[moreCounties == null ? 1 : moreCounties.length + 1];
+		bits[0] = counties;
+		if (moreCounties != null)
+			System.arraycopy(moreCounties, 0, bits, 1, moreCounties.length);
+		return bits;
+	}
+	
+	/**
+	 * Returns true if this species and the specified one are present in exactly the same counties.
+	 * @param other	species to compare counties with.
+	 * @return	true if the two county sets are equal, false otherwise.
+	 */
+	boolean hasSameCounties(Species other) {
+		if (counties != other.counties)
 			return false;
-		
-		counties.add(county);
+		int words = Math.max(moreCounties == null ? 0 : moreCounties.length,
+				other.moreCounties == null ? 0 : other.moreCounties.length);
+		for (int i = 0; i < words; i++) {
+			long a = moreCounties == null || i >= moreCounties.length ? 0 : moreCounties[i];
+			long b = other.moreCounties == null || i >= other.moreCounties.length ? 0 : other.moreCounties[i];
+			if (a != b)
+				return false;
+		}
 		return true;
 	}
 	
 	/**
-	 * Returns the list of counties for this Species object.
+	 * Returns the number of counties in which this species is present.
+	 * @return	number of counties.
+	 */
+	public int countyCount() {
+		int n = Long.bitCount(counties);
+		if (moreCounties != null) {
+			for (long w : moreCounties) {
+				n += Long.bitCount(w);
+			}
+		}
+		return n;
+	}
+	
+	/**
+	 * Returns the list of counties for this Species object, in the order the counties were first seen.
 	 * @return	ArrayList<String> representation list of counties.
 	 */
 	public ArrayList<String> getCounties() {
-		return counties;
+		ArrayList<String> list = new ArrayList<>(countyCount());
+		for (int id = nextCounty(0); id >= 0; id = nextCounty(id + 1)) {
+			list.add(Counties.nameOf(id));
+		}
+		return list;
 	}
 
 }
\ No newline at end of file
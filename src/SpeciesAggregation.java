@@ -0,0 +1,310 @@
+package project3;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+/**
+ * This class holds the totals of the species of a SpeciesList that match a filter, such as "species count per
+ * county" or "per taxonomic group totals" of the threatened species: the number of species with each value of every
+ * SpeciesAttribute, the number of species present in each county, and the most widespread species, those present
+ * in the most counties.
+ * The totals are computed by SpeciesList.aggregate() in a single pass over the matching species, which is split
+ * between the threads of the common fork-join pool when there are many of them. Each thread counts its share of the
+ * species in its own counters, which are added together at the end, and keeps only the most widespread species it
+ * has seen in a bounded heap, so no list of the matching species is built or sorted. The largest groups are also
+ * selected with a bounded heap when only the first few are asked for.
+ * Attribute values are grouped ignoring case, each group named after the first value of it in ascending order of
+ * the species.
+ * @author Adam Soliman
+ * @version 3-6-24
+ */
+public class SpeciesAggregation {
+
+	/**
+	 * Smallest number of matching species that are counted in parallel rather than by the calling thread.
+	 */
+	static final int PARALLEL_THRESHOLD = 1 << 13;
+
+	/**
+	 * Number of 64-bit words of the bitmap of matches counted by one task of the parallel pass.
+	 */
+	static final int CHUNK_WORDS = 16;
+
+	/**
+	 * Order of species from the most widespread: by decreasing number of counties, then in ascending order.
+	 */
+	static final Comparator<Species> MOST_WIDESPREAD =
+			Comparator.comparingInt(Species::countyCount).reversed().thenComparing(Comparator.naturalOrder());
+
+	/**
+	 * Order of groups from the largest: by decreasing count, then by name.
+	 */
+	private static final Comparator<Map.Entry<String, Integer>> LARGEST =
+			Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+
+	private final int count;
+	private final EnumMap<SpeciesAttribute, LinkedHashMap<String, Integer>> groups =
+			new EnumMap<>(SpeciesAttribute.class);
+	private final LinkedHashMap<String, Integer> counties = new LinkedHashMap<>();
+	private final List<Species> mostWidespread;
+
+	/**
+	 * Computes the totals of the matching species of a sorted array.
+	 * @param species	species in ascending order.
+	 * @param countyIds	number of county IDs, larger than the ID of every county of the species.
+	 * @param matches	bitmap of the ordinals of the matching species.
+	 * @param top	largest number of most widespread species to keep.
+	 */
+	SpeciesAggregation(Species[] species, int countyIds, BitSet matches, int top) {
+		this(species, countyIds, matches, top, matches.cardinality() >= PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * Computes the totals of the matching species of a sorted array, in parallel or not.
+	 * In parallel, the words of the bitmap are split into ranges of CHUNK_WORDS words, each counted by one task.
+	 * An IntStream over the ranges splits them evenly between the threads, and its ordered collect() merges the
+	 * counters of the ranges in ascending order, so the result is the same as counting by one thread.
+	 * @param species	species in ascending order.
+	 * @param countyIds	number of county IDs, larger than the ID of every county of the species.
+	 * @param matches	bitmap of the ordinals of the matching species.
+	 * @param top	largest number of most widespread species to keep.
+	 * @param parallel	true to count on the common fork-join pool, false to count on the calling thread.
+	 */
+	SpeciesAggregation(Species[] species, int countyIds, BitSet matches, int top, boolean parallel) {
+		Counter total;
+		long[] words = matches.toLongArray();
+		if (!parallel) {
+			total = new Counter(species, countyIds, top);
+			total.add(words, 0, words.length);
+		} else {
+			int chunks = (words.length + CHUNK_WORDS - 1) / CHUNK_WORDS;
+			total = IntStream.range(0, chunks).parallel().collect(() -> new Counter(species, countyIds, top),
+					(c, chunk) -> c.add(words, chunk * CHUNK_WORDS, Math.min(words.length, (chunk + 1) * CHUNK_WORDS)),
+					Counter::merge);
+		}
+		count = total.count;
+		for (SpeciesAttribute a : SpeciesAttribute.values()) {
+			// merge the values that only differ by case, as AttributeIndex does
+			LinkedHashMap<String, String> names = new LinkedHashMap<>();
+			LinkedHashMap<String, Integer> sizes = new LinkedHashMap<>();
+			for (Map.Entry<String, int[]> e : total.groups.get(a).entrySet()) {
+				String key = Species.fold(e.getKey());
+				names.putIfAbsent(key, e.getKey());
+				sizes.merge(key, e.getValue()[0], Integer::sum);
+			}
+			LinkedHashMap<String, Integer> values = new LinkedHashMap<>();
+			for (Map.Entry<String, Integer> e : sizes.entrySet()) {
+				values.put(names.get(e.getKey()), e.getValue());
+			}
+			groups.put(a, values);
+		}
+		for (int id = 0; id < total.counties.length; id++) {
+			if (total.counties[id] > 0)
+				counties.put(Counties.nameOf(id), total.counties[id]);
+		}
+		ArrayList<Species> widest = new ArrayList<>(total.widest);
+		widest.sort(MOST_WIDESPREAD); // at most top species
+		mostWidespread = Collections.unmodifiableList(widest);
+	}
+
+	/**
+	 * Returns the number of species that matched the filter.
+	 * @return	number of matching species.
+	 */
+	public int getCount() { return count; }
+
+	/**
+	 * Returns the number of matching species with each value of an attribute, ignoring case.
+	 * @param attribute	attribute to group by.
+	 * @return	a read-only map from each value to its number of species, from the largest group.
+	 * @throws IllegalArgumentException	if the attribute is null.
+	 */
+	public Map<String, Integer> countBy(SpeciesAttribute attribute) throws IllegalArgumentException {
+		return top(attribute, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the values of an attribute shared by the most matching species.
+	 * @param attribute	attribute to group by.
+	 * @param n	largest number of values returned.
+	 * @return	a read-only map from at most n values to their number of species, from the largest group.
+	 * @throws IllegalArgumentException	if the attribute is null or n is negative.
+	 */
+	public Map<String, Integer> top(SpeciesAttribute attribute, int n) throws IllegalArgumentException {
+		if (attribute == null) {
+			throw new IllegalArgumentException("Null attributes are not allowed");
+		}
+		return largest(groups.get(attribute), n);
+	}
+
+	/**
+	 * Returns the number of matching species present in each county. Counties with none are left out.
+	 * @return	a read-only map from each county to its number of species, from the richest county.
+	 */
+	public Map<String, Integer> countByCounty() {
+		return largest(counties, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the counties where the most matching species are present.
+	 * @param n	largest number of counties returned.
+	 * @return	a read-only map from at most n counties to their number of species, from the richest county.
+	 * @throws IllegalArgumentException	if n is negative.
+	 */
+	public Map<String, Integer> topCounties(int n) throws IllegalArgumentException {
+		return largest(counties, n);
+	}
+
+	/**
+	 * Returns the matching species present in the most counties, as many as were asked for when the totals were
+	 * computed.
+	 * @return	a read-only list of the most widespread species, in the order of MOST_WIDESPREAD.
+	 */
+	public List<Species> getMostWidespread() { return mostWidespread; }
+
+	/**
+	 * Returns a summary of the totals.
+	 * @return	the number of matching species, of taxonomic groups and of counties.
+	 */
+	@Override
+	public String toString() {
+		return count + " species in " + groups.get(SpeciesAttribute.TAXONOMIC_GROUP).size() + " taxonomic groups and "
+				+ counties.size() + " counties";
+	}
+
+	/**
+	 * Selects the largest groups with a heap of at most n groups, whose smallest group is replaced whenever a larger
+	 * one is found.
+	 * @param sizes	size of every group.
+	 * @param n	largest number of groups returned.
+	 * @return	a read-only map of at most n groups to their size, from the largest group.
+	 * @throws IllegalArgumentException	if n is negative.
+	 */
+	private static Map<String, Integer> largest(Map<String, Integer> sizes, int n) throws IllegalArgumentException {
+		if (n < 0) {
+			throw new IllegalArgumentException("Number of results cannot be negative");
+		}
+		ArrayList<Map.Entry<String, Integer>> selected = new ArrayList<>();
+		if (n >= sizes.size()) {
+			selected.addAll(sizes.entrySet());
+		} else if (n > 0) {
+			PriorityQueue<Map.Entry<String, Integer>> heap = new PriorityQueue<>(n, LARGEST.reversed());
+			for (Map.Entry<String, Integer> e : sizes.entrySet()) {
+				if (heap.size() < n) {
+					heap.add(e);
+				} else if (LARGEST.compare(e, heap.peek()) < 0) {
+					heap.poll();
+					heap.add(e);
+				}
+			}
+			selected.addAll(heap);
+		}
+		selected.sort(LARGEST);
+		LinkedHashMap<String, Integer> result = new LinkedHashMap<>();
+		for (Map.Entry<String, Integer> e : selected) {
+			result.put(e.getKey(), e.getValue());
+		}
+		return Collections.unmodifiableMap(result);
+	}
+
+	/**
+	 * The counters of one thread: the number of species, the number of species with each exact value of every
+	 * attribute and in every county, and a heap of the most widespread species seen, whose least widespread species
+	 * is at the head.
+	 */
+	private static final class Counter {
+		final Species[] species;
+		final int top;
+		int count;
+		final EnumMap<SpeciesAttribute, LinkedHashMap<String, int[]>> groups = new EnumMap<>(SpeciesAttribute.class);
+		final int[] counties;
+		final PriorityQueue<Species> widest;
+
+		Counter(Species[] species, int countyIds, int top) {
+			this.species = species;
+			counties = new int[countyIds];
+			this.top = top;
+			for (SpeciesAttribute a : SpeciesAttribute.values()) {
+				groups.put(a, new LinkedHashMap<>());
+			}
+			widest = new PriorityQueue<>(Math.max(1, Math.min(top, 1024)), MOST_WIDESPREAD.reversed());
+		}
+
+		/**
+		 * Counts the species whose ordinals are set in a range of words of a bitmap.
+		 * @param words	words of the bitmap, as returned by BitSet.toLongArray().
+		 * @param from	index of the first word of the range.
+		 * @param to	index one past the last word of the range.
+		 */
+		void add(long[] words, int from, int to) {
+			for (int w = from; w < to; w++) {
+				for (long bits = words[w]; bits != 0; bits &= bits - 1) {
+					add((w << 6) + Long.numberOfTrailingZeros(bits));
+				}
+			}
+		}
+
+		/**
+		 * Counts the species with the specified ordinal.
+		 * @param o	ordinal of the species.
+		 */
+		void add(int o) {
+			Species s = species[o];
+			count++;
+			for (Map.Entry<SpeciesAttribute, LinkedHashMap<String, int[]>> e : groups.entrySet()) {
+				String value = e.getKey().of(s); // counted exactly, so no value is folded for each species
+				int[] n = e.getValue().get(value);
+				if (n == null)
+					e.getValue().put(value, new int[] { 1 });
+				else
+					n[0]++;
+			}
+			for (int id = s.nextCounty(0); id >= 0; id = s.nextCounty(id + 1)) {
+				counties[id]++;
+			}
+			offer(s);
+		}
+
+		/**
+		 * Keeps a species if it is among the most widespread species seen.
+		 * @param s	input species.
+		 */
+		void offer(Species s) {
+			if (widest.size() < top) {
+				widest.add(s);
+			} else if (top > 0 && MOST_WIDESPREAD.compare(s, widest.peek()) < 0) {
+				widest.poll();
+				widest.add(s);
+			}
+		}
+
+		/**
+		 * Adds the counters of the species that follow the species counted by this counter.
+		 * @param other	counters of the following species.
+		 */
+		void merge(Counter other) {
+			count += other.count;
+			for (SpeciesAttribute a : SpeciesAttribute.values()) {
+				LinkedHashMap<String, int[]> values = groups.get(a);
+				for (Map.Entry<String, int[]> e : other.groups.get(a).entrySet()) {
+					int[] n = values.putIfAbsent(e.getKey(), e.getValue());
+					if (n != null)
+						n[0] += e.getValue()[0];
+				}
+			}
+			for (int id = 0; id < other.counties.length; id++) {
+				counties[id] += other.counties[id];
+			}
+			for (Species s : other.widest) {
+				offer(s);
+			}
+		}
+	}
+
+}
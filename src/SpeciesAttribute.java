@@ -0,0 +1,33 @@
+package project3;
+/**
+ * This enum lists the attributes of a Species object that hold one value shared by many species, and that species
+ * can therefore be filtered or grouped by.
+ * @author Adam Soliman
+ * @version 3-6-24
+ */
+public enum SpeciesAttribute {
+
+	CATEGORY,
+	TAXONOMIC_GROUP,
+	TAXONOMIC_SUBGROUP,
+	NY_LISTING_STATUS;
+
+	/**
+	 * Returns the value of this attribute for the specified species.
+	 * @param s	input species.
+	 * @return	the value of this attribute for the species.
+	 */
+	public String of(Species s) {
+		switch (this) {
+		case CATEGORY:
+			return s.getCategory();
+		case TAXONOMIC_GROUP:
+			return s.getTaxonomicGroup();
+		case TAXONOMIC_SUBGROUP:
+			return s.getTaxonomicSubGroup();
+		default:
+			return s.getNYListingStatus();
+		}
+	}
+
+}
@@ -0,0 +1,176 @@
+package project3;
+import java.util.concurrent.atomic.AtomicReference;
+/**
+ * This class holds the current version of a SpeciesList that is searched by several threads at once.
+ * Every version is frozen before it is published, so readers search it without any locking and never see a species
+ * or a link between elements that is being changed. A new version is prepared on a copy of the current one, or
+ * loaded from scratch, while readers keep searching the current version, and then replaces it atomically: a reader
+ * sees either the whole old version or the whole new one.
+ * Searches made through the catalog are cached in a QueryCache that belongs to the version they searched. A new
+ * version is published together with a new, empty cache, in the same atomic step, so a cached result is never
+ * returned for any other version than the one it was found in.
+ * @author Adam Soliman
+ * @version 3-6-24
+ */
+public class SpeciesCatalog {
+
+	/**
+	 * A published version: the list, its cache and its number, which are always replaced together.
+	 */
+	private static final class Version {
+		final SpeciesList list;
+		final QueryCache cache;
+		final long number;
+
+		Version(SpeciesList list, int cacheCapacity, long number) {
+			this.list = list;
+			this.cache = new QueryCache(cacheCapacity);
+			this.number = number;
+		}
+	}
+
+	private final AtomicReference<Version> current;
+	private final Object writeLock = new Object(); // serializes publishers; readers never take it
+	private final int cacheCapacity;
+
+	/**
+	 * Constructs a catalog whose first version is the specified list, which is frozen, caching up to
+	 * QueryCache.DEFAULT_CAPACITY search results.
+	 * @param list	first version of the catalog.
+	 * @throws IllegalArgumentException	if the list is null.
+	 */
+	public SpeciesCatalog(SpeciesList list) throws IllegalArgumentException {
+		this(list, QueryCache.DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs a catalog whose first version is the specified list, which is frozen.
+	 * @param list	first version of the catalog.
+	 * @param cacheCapacity	largest number of search results cached for each version; 0 disables caching.
+	 * @throws IllegalArgumentException	if the list is null or the capacity is negative.
+	 */
+	public SpeciesCatalog(SpeciesList list, int cacheCapacity) throws IllegalArgumentException {
+		if (list == null) {
+			throw new IllegalArgumentException("Null objects are not allowed");
+		}
+		if (cacheCapacity < 0) {
+			throw new IllegalArgumentException("Capacity cannot be negative");
+		}
+		this.cacheCapacity = cacheCapacity;
+		current = new AtomicReference<>(new Version(list.freeze(), cacheCapacity, 1));
+	}
+
+	/**
+	 * Returns the current version of the catalog. The returned list is frozen and stays consistent for as long as
+	 * the caller uses it, even if a newer version is published meanwhile.
+	 * @return	the current version.
+	 */
+	public SpeciesList get() {
+		return current.get().list;
+	}
+
+	/**
+	 * Returns the number of versions published, starting at 1 for the list the catalog was constructed with.
+	 * @return	the version number of the current version.
+	 */
+	public long getVersion() { return current.get().number; }
+
+	/**
+	 * Returns the cache of search results of the current version, for its statistics.
+	 * @return	the query cache of the current version.
+	 */
+	public QueryCache getCache() { return current.get().cache; }
+
+	/**
+	 * Searches the current version for the species whose names contain the keyword, as SpeciesList.getByName()
+	 * does, answering from the cache of the version when the same keyword, ignoring case, was searched before.
+	 * @param keyword	the key word to search for.
+	 * @return	a read-only list of the matching species, or null if no species matches.
+	 * @throws IllegalArgumentException	if the keyword is null or empty.
+	 */
+	public SpeciesList getByName(String keyword) throws IllegalArgumentException {
+		if (keyword == null || keyword.equals("")) {
+			throw new IllegalArgumentException("Null/empty keywords are not allowed");
+		}
+		Version v = current.get();
+		String key = "name:" + Species.fold(keyword);
+		Species[] cached = v.cache.get(key);
+		if (cached == null) {
+			SpeciesList result = v.list.getByName(keyword);
+			v.cache.put(key, result == null ? new Species[0] : result.toArray());
+			return result;
+		}
+		return cached.length == 0 ? null : SpeciesList.readOnly(cached);
+	}
+
+	/**
+	 * Searches the current version for the species matching a filter, as SpeciesList.query() does, answering from
+	 * the cache of the version when a filter with the same terms was evaluated before.
+	 * @param query	the filter to match.
+	 * @return	a read-only list of the matching species, or null if no species matches.
+	 * @throws IllegalArgumentException	if the filter is null.
+	 */
+	public SpeciesList query(SpeciesQuery query) throws IllegalArgumentException {
+		if (query == null) {
+			throw new IllegalArgumentException("Null queries are not allowed");
+		}
+		Version v = current.get();
+		String key = "query:" + query.key();
+		Species[] cached = v.cache.get(key);
+		if (cached == null) {
+			SpeciesList result = v.list.query(query);
+			v.cache.put(key, result == null ? new Species[0] : result.toArray());
+			return result;
+		}
+		return cached.length == 0 ? null : SpeciesList.readOnly(cached);
+	}
+
+	/**
+	 * Computes the totals of the species of the current version matching a filter, as SpeciesList.aggregate() does.
+	 * Totals are not cached: they are computed in one pass over the matching species, without building a list.
+	 * @param query	the filter to match.
+	 * @param top	largest number of most widespread species to keep.
+	 * @return	the totals of the matching species.
+	 * @throws IllegalArgumentException	if the filter is null or top is negative.
+	 */
+	public SpeciesAggregation aggregate(SpeciesQuery query, int top) throws IllegalArgumentException {
+		return get().aggregate(query, top);
+	}
+
+	/**
+	 * Freezes the specified list and makes it the current version, with an empty cache.
+	 * @param list	new version of the catalog; it must not be changed afterwards.
+	 * @throws IllegalArgumentException	if the list is null.
+	 */
+	public void publish(SpeciesList list) throws IllegalArgumentException {
+		if (list == null) {
+			throw new IllegalArgumentException("Null objects are not allowed");
+		}
+		list.freeze(); // build the indexes before readers can see the list
+		synchronized (writeLock) {
+			current.set(new Version(list, cacheCapacity, current.get().number + 1));
+		}
+	}
+
+	/**
+	 * Publishes a newer version of the data, applying only its differences from the current version.
+	 * The differences are applied to a copy of the current version, so the species of the current version are never
+	 * changed and readers keep searching it until the copy is published.
+	 * @param fresh	newer version of the data, such as a refreshed export; its elements are moved into the catalog.
+	 * @return	the differences that were applied.
+	 * @throws IllegalArgumentException	if the list is null.
+	 */
+	public CatalogDiff reload(SpeciesList fresh) throws IllegalArgumentException {
+		synchronized (writeLock) {
+			SpeciesList old = current.get().list;
+			CatalogDiff diff = CatalogDiff.between(old, fresh);
+			if (!diff.isEmpty()) {
+				SpeciesList next = old.copy();
+				diff.applyTo(next);
+				publish(next);
+			}
+			return diff;
+		}
+	}
+
+}
@@ -1,42 +1,152 @@
 package project3;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.ListIterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 /**
- * This class represents a list of Species objects, implemented as a doubly-linked list. It implements the Iterable interface.
+ * This class represents a list of Species objects, implemented as a sorted array. It implements the Iterable interface.
+ * Elements are stored contiguously, so the element at any index is found in constant time, iteration walks the array
+ * in order, and the position of an element is found by binary search.
+ * A hash index over the elements finds an element equal to a given Species in constant time.
  * All elements in the list are maintained in ascending/increasing order based on the natural order of the elements.
  * This list does not allow null elements.
  * @author Adam Soliman
  * @version 3-6-24
  */
 public class SpeciesList implements Iterable<Species> {
-	private class Node {
-		
-		Species data;
-        Node prev;
-        Node next;
-
-        public Node(Species data) {
-            this.data = data;
-            this.prev = null;
-            this.next = null;
-        }
-        
-	}
+	private static final Species[] EMPTY = new Species[0];
 	
-    private Node head;
-    private Node tail;
+    private Species[] elements; // elements in ascending order; slots from size on are null
     private int size;
+    // maps each element to itself, so equal species are found without searching the list; built on first use
+    private HashMap<Species, Species> elementIndex;
+    // search indexes over the names, each built on its first use and dropped whenever the list changes
+    private NameIndex nameIndex;
+    private PrefixTrie prefixTrie;
+    private BKTree bkTree;
+    private CountyIndex countyIndex; // also dropped whenever counties are merged into an element
+    private AttributeIndex attributeIndex;
+    private HashMap<String, Species> scientificNames; // folded scientific name to the first element with it
+    private Species[] ordered; // elements in ascending order, shared by the indexes
+    private boolean frozen; // set by freeze(); every index is built, and nothing in the list can change anymore
+    private boolean readOnly; // set by freeze() and for results taken from a read-only list; no index is built for it
     
     /**
-     * Constructs a new empty sorted linked list of Species objects.
+     * Constructs a new empty sorted list of Species objects.
      */
 	public SpeciesList() {
-		head = null;
-		tail = null;
+		elements = EMPTY;
 		size = 0;
 	}
 	
+	/**
+	 * Constructs a new empty list to hold results taken from another list.
+	 * @param readOnly	true if the list holds elements of a frozen list, which must not be changed through it.
+	 */
+	private SpeciesList(boolean readOnly) {
+		this();
+		this.readOnly = readOnly;
+	}
+	
+	/**
+	 * Constructs a list holding the first size elements of the specified array, which must be in ascending order
+	 * and hold no two equal species.
+	 * @param elements	elements of the list; the array is kept by the list.
+	 * @param size	number of elements.
+	 */
+	private SpeciesList(Species[] elements, int size) {
+		this.elements = elements;
+		this.size = size;
+	}
+	
+	/**
+	 * Returns a read-only list of the specified species, such as a cached search result.
+	 * The list is read-only but not frozen, like the results of a search of a frozen list: its search indexes are
+	 * built on their first use, so it should be used by one thread, or frozen before it is shared.
+	 * @param elements	species in ascending order, with no two equal; the array is shared by the list, and must
+	 * 			not be modified afterwards.
+	 * @return	a read-only list of the species.
+	 */
+	static SpeciesList readOnly(Species[] elements) {
+		SpeciesList list = new SpeciesList(elements, elements.length);
+		list.readOnly = true;
+		return list;
+	}
+	
+	/**
+	 * Makes this list read-only, so that it can be shared by several threads without locking.
+	 * Every search index is built first, so that no later call on this list modifies it. Afterwards, every method
+	 * that would change the list or the counties of its elements throws UnsupportedOperationException, and the
+	 * lists returned by its searches are read-only as well, since they hold the same elements.
+	 * The list must not be changed while it is frozen, and should be published to other threads through a volatile
+	 * field or another safe publication mechanism, as done by SpeciesCatalog.
+	 * @return	this list.
+	 */
+	public SpeciesList freeze() {
+		if (!frozen) {
+			elementIndex();
+			ordered();
+			nameIndex();
+			if (prefixTrie == null)
+				prefixTrie = new PrefixTrie(ordered());
+			if (bkTree == null)
+				bkTree = new BKTree(ordered());
+			countyIndex();
+			if (attributeIndex == null)
+				attributeIndex = new AttributeIndex(ordered());
+			scientificNames();
+			frozen = true;
+			readOnly = true;
+		}
+		return this;
+	}
+	
+	/**
+	 * Returns true if this list was frozen, so that every search index is built and it can be shared by several
+	 * threads.
+	 * @return	true if freeze() was called on this list, false otherwise.
+	 */
+	public boolean isFrozen() { return frozen; }
+	
+	/**
+	 * Returns true if this list is read-only.
+	 * @return	true if this list was frozen or holds the results of a search of a read-only list, false otherwise.
+	 */
+	public boolean isReadOnly() { return readOnly; }
+	
+	/**
+	 * Returns a new list, which is not frozen, with the same elements as this list in the same order.
+	 * The elements themselves are shared, not copied, so adding a species equal to an element of the copy merges
+	 * counties into an element of this list too. CatalogDiff.applyTo() only removes and replaces elements and adds
+	 * species that are not in the list, so it can be applied to a copy without changing this list.
+	 * @return	a copy of this list.
+	 */
+	public SpeciesList copy() {
+		SpeciesList copy = new SpeciesList();
+		copy.elements = Arrays.copyOf(elements, size);
+		copy.size = size;
+		return copy;
+	}
+	
+	/**
+	 * Checks that this list may be changed.
+	 * @throws UnsupportedOperationException	if this list is read-only.
+	 */
+	private void checkMutable() throws UnsupportedOperationException {
+		if (readOnly)
+			throw new UnsupportedOperationException("This list is read-only");
+	}
+	
 	/**
 	 * Adds the specified Species to this SpeciesList in ascending order.
 	 * If this list contains an element that is equal to species argument, 
@@ -45,166 +155,228 @@ public class SpeciesList implements Iterable<Species> {
 	 * @return	true if the species could be added, false otherwise.
 	 */
 	public boolean add(Species species) throws IllegalArgumentException {
+		checkMutable();
 		if (species == null)
 			throw new IllegalArgumentException("Null objects are not allowed");
-		if (this.head == null) {
-			head = new Node(species);
-			tail = head;
-			size++;
-			return true;
-		} else if (head.next == null) {
-			if (head.data.equals(species)) {
-				return false; // species is already the head of the list.
-			}
-			if (head.data.compareTo(species) < 0) {
-				head.next = new Node(species);
-				tail = head.next;
-				tail.prev = head; // two element list
-				size++;
-				return true;
-			} else {
-				Node spe = new Node(species);
-				Node temp = head;
-				head = spe;
-				spe.next = temp;
-				tail = temp;
-				tail.prev = spe;
-				size++;
-				return true;
-			}
-		}
-		Node temp = head;
-		if (temp.data.compareTo(species) > 0) {
-			Node spe = new Node(species);
-			spe.next = temp;
-			head = spe;
-			temp.prev = head;
-			size++;
-			return true;
-		}
-		while (temp != null) {
-			if (temp.data.compareTo(species) < 0) {
-				temp = temp.next;
-				continue;
-			} else if (temp.data.equals(species)) {
-				// if Species is already in the list, merge counties
-				for (String c : species.getCounties()) {
-				    temp.data.addCounty(c);
-				}
-				return false;
-			} else {
-				// Move specified Species into the list before temp
-				Node spe = new Node(species);
-				Node pre = temp.prev;
-				pre.next = spe;
-				temp.prev = spe;
-				spe.next = temp;
-				spe.prev = pre;
-				size++;
-				return true;
-			}
+		Species existing = elementIndex().get(species);
+		if (existing != null) {
+			// if Species is already in the list, merge counties
+			mergeCounties(existing, species);
+			Metrics.added(true);
+			return false;
 		}
-		// add node to the end of the list.
-		Node added = new Node(species);
-		tail.next = added;
-		added.prev = tail;
-		tail = added;
-		size++;
+		link(species);
+		Metrics.added(false);
 		return true;
 	}
 	
 	/**
 	 * Adds the specified species element and its associated county to the list in ascending order.
+	 * If this list contains an element that is equal to species argument, the counties of the species argument and
+	 * the input county are merged into the object in the list; finding that element takes constant time.
 	 * @param species	Species element to be added to the list.
 	 * @param county	county to be added to the specific Species' list.
 	 * @return	true if the element was successfully added, false otherwise.
 	 * @throws IllegalArgumentException	if the input Species is null, or the input county is null or empty.
 	 */
 	public boolean add(Species species, String county) throws IllegalArgumentException {
+		checkMutable();
 		if (species == null)
 			throw new IllegalArgumentException("Null objects are not allowed");
-		if (this.head == null) {
-			head = new Node(species);
-			tail = head;
-			head.data.addCounty(county);
-			size++;
-			return true;
-		} else if (head.next == null) {
-			if (head.data.equals(species)) {
-				return false; // species is already the head of the list.
-			}
-			if (head.data.compareTo(species) < 0) {
-				head.next = new Node(species);
-				tail = head.next;
-				tail.prev = head; // two element list
-				tail.data.addCounty(county);
-				size++;
-				return true;
+		if (county == null || county.equals(""))
+			throw new IllegalArgumentException("Null/empty counties are not allowed");
+		Species existing = elementIndex().get(species);
+		if (existing != null) {
+			// if Species is already in the list, merge counties
+			mergeCounties(existing, species);
+			if (existing.addCounty(county))
+				countyIndex = null;
+			Metrics.added(true);
+			return false;
+		}
+		species.addCounty(county);
+		link(species);
+		Metrics.added(false);
+		return true;
+	}
+	
+	/**
+	 * Merges the counties of the source species into the target species.
+	 * @param target	species stored in this list.
+	 * @param source	species whose counties are copied into target.
+	 */
+	private void mergeCounties(Species target, Species source) {
+		if (target == source)
+			return;
+		target.addCounties(source);
+		countyIndex = null;
+	}
+	
+	/**
+	 * Adds every element of the specified SpeciesList to this list in ascending order.
+	 * Elements equal to an element of this list have their counties merged into the element of this list; the other
+	 * elements are inserted into this list. Both lists are sorted, so the two are merged in a single pass.
+	 * @param other	list whose elements are added to this list.
+	 * @return	true if any element was added to this list, false otherwise.
+	 * @throws IllegalArgumentException	if the input list is null.
+	 */
+	public boolean addAll(SpeciesList other) throws IllegalArgumentException {
+		checkMutable();
+		if (other == null)
+			throw new IllegalArgumentException("Null objects are not allowed");
+		if (other == this)
+			return false;
+		HashMap<Species, Species> index = elementIndex();
+		Species[] added = new Species[other.size];
+		int n = 0;
+		for (int i = 0; i < other.size; i++) {
+			Species species = other.elements[i];
+			Species existing = index.get(species);
+			if (existing != null) {
+				mergeCounties(existing, species);
 			} else {
-				Node spe = new Node(species);
-				Node temp = head;
-				head = spe;
-				spe.next = temp;
-				tail = temp;
-				tail.prev = spe;
-				head.data.addCounty(county);
-				size++;
-				return true;
+				added[n++] = species;
 			}
-			
-		}
-		Node temp = head;
-		// Check if the head should be changed
-		if (temp.data.compareTo(species) > 0) {
-			Node spe = new Node(species);
-			spe.next = temp;
-			head = spe;
-			temp.prev = head;
-			head.data.addCounty(county);
-			size++;
-			return true;
-		}
-		while (temp != null) {
-			if (temp.data.compareTo(species) < 0) {
-				temp = temp.next;
-				continue;
-			} else if (temp.data.equals(species)) {
-				// if Species is already in the list, merge counties
-				for (String c : species.getCounties()) {
-				    temp.data.addCounty(c);
-				}
-				temp.data.addCounty(county);
-				return false;
+		}
+		if (n == 0)
+			return false;
+		// each new element goes before the first element that is greater than or equal to it
+		Species[] merged = new Species[size + n];
+		int i = 0;
+		int j = 0;
+		int k = 0;
+		while (j < n) {
+			if (i < size && elements[i].compareTo(added[j]) < 0) {
+				merged[k++] = elements[i++];
 			} else {
-				// Move specified Species into the list before temp
-				Node spe = new Node(species);
-				Node pre = temp.prev;
-				pre.next = spe;
-				temp.prev = spe;
-				spe.next = temp;
-				spe.prev = pre;
-				spe.data.addCounty(county);
-				size++;
-				return true;
+				index.put(added[j], added[j]);
+				merged[k++] = added[j++];
 			}
 		}
-		// Node should be the new tail.
-		Node added = new Node(species);
-		tail.next = added;
-		added.prev = tail;
-		tail = added;
-		tail.data.addCounty(county);
-		size++;
+		System.arraycopy(elements, i, merged, k, size - i);
+		elements = merged;
+		size += n;
+		indexesChanged();
 		return true;
 	}
 	
+	/**
+	 * Adds the specified species as the new last element of this list, without searching for its position.
+	 * Used to rebuild a list from species that are already in ascending order.
+	 * @param species	species to be added; must not be less than the last element or equal to any element.
+	 * @throws IllegalArgumentException	if the species is null, less than the last element, or already in the list.
+	 */
+	void appendSorted(Species species) throws IllegalArgumentException {
+		checkMutable();
+		if (species == null)
+			throw new IllegalArgumentException("Null objects are not allowed");
+		if (size > 0 && elements[size - 1].compareTo(species) > 0)
+			throw new IllegalArgumentException("Species is out of order");
+		if (elementIndex().containsKey(species))
+			throw new IllegalArgumentException("Species is already in the list");
+		insert(size, species);
+	}
+	
+	/**
+	 * Inserts the specified species at its sorted position and records it in the index.
+	 * The species must not already be in this list. It is placed before the first element that is greater than or
+	 * equal to it, found by binary search; appending past the last element is checked first since input is often
+	 * already sorted.
+	 * @param species	species to be inserted into the list.
+	 */
+	private void link(Species species) {
+		int position = size;
+		if (size > 0 && elements[size - 1].compareTo(species) >= 0) {
+			position = lowerBound(species);
+		}
+		insert(position, species);
+	}
+	
+	/**
+	 * Returns the position of the first element that is greater than or equal to the specified species.
+	 * @param species	species to search for.
+	 * @return	the index of the first element not less than the species, or size if there is none.
+	 */
+	private int lowerBound(Species species) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (elements[mid].compareTo(species) < 0)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+	
+	/**
+	 * Returns the position of the specified element of this list. Elements with equal names compare as equal, so the
+	 * elements from the first one not less than the species are checked until the element itself is found.
+	 * @param element	element stored in this list.
+	 * @return	the index of the element.
+	 */
+	private int position(Species element) {
+		int i = lowerBound(element);
+		while (elements[i] != element) {
+			i++;
+		}
+		return i;
+	}
+	
+	/**
+	 * Inserts the specified species at the specified position, shifting the later elements up, and records it in
+	 * the index.
+	 * @param position	index the species is stored at.
+	 * @param species	species to be inserted into the list.
+	 */
+	private void insert(int position, Species species) {
+		if (size == elements.length) {
+			elements = Arrays.copyOf(elements, Math.max(8, size + (size >> 1)));
+		}
+		System.arraycopy(elements, position, elements, position + 1, size - position);
+		elements[position] = species;
+		size++;
+		if (elementIndex != null)
+			elementIndex.put(species, species);
+		indexesChanged();
+	}
+	
+	/**
+	 * Appends an element of another list, taken in ascending order, to a list holding search results.
+	 * The hash index of the results is only built if it is used.
+	 * @param species	species to be appended; must not be less than the last element.
+	 */
+	private void append(Species species) {
+		if (size == elements.length) {
+			elements = Arrays.copyOf(elements, Math.max(8, size + (size >> 1)));
+		}
+		elements[size++] = species;
+	}
+	
+	/**
+	 * Returns the hash index from each element of this list to itself, building it if needed.
+	 * @return	the element index of this list.
+	 */
+	private HashMap<Species, Species> elementIndex() {
+		if (elementIndex == null) {
+			elementIndex = new HashMap<>(Math.max(16, size * 4 / 3 + 1));
+			for (int i = 0; i < size; i++) {
+				elementIndex.put(elements[i], elements[i]);
+			}
+		}
+		return elementIndex;
+	}
+	
 	/**
 	 * Removes all elements from this SpeciesList.
 	 */
 	public void clear() {
-		head = null;
-		tail = null;
+		checkMutable();
+		Arrays.fill(elements, 0, size, null);
 		size = 0;
+		elementIndex = null;
+		indexesChanged();
 	}
 	
 	/**
@@ -217,12 +389,37 @@ public class SpeciesList implements Iterable<Species> {
 			return false;
 		}
 		Species obj = (Species) o;
-		for (Species s : this) {
-			if (s.equals(obj))
-				return true;
-		}
-		
-		return false;
+		return elementIndex().containsKey(obj);
+	}
+	
+	/**
+	 * Returns the element of this list that is equal to the input Species.
+	 * @param species	species to look up.
+	 * @return	the element equal to the species, or null if there is none.
+	 */
+	Species find(Species species) {
+		return elementIndex().get(species);
+	}
+	
+	/**
+	 * Replaces the element of this list that is equal to the input Species with the input Species, keeping its
+	 * position. Equal species have equal names ignoring case, so the list stays in ascending order.
+	 * @param species	species to store in place of the equal element.
+	 * @return	true if an equal element was replaced, false if the list has no equal element.
+	 * @throws IllegalArgumentException	if the species is null.
+	 */
+	boolean replace(Species species) throws IllegalArgumentException {
+		checkMutable();
+		if (species == null)
+			throw new IllegalArgumentException("Null objects are not allowed");
+		HashMap<Species, Species> index = elementIndex();
+		Species element = index.remove(species);
+		if (element == null)
+			return false;
+		elements[position(element)] = species;
+		index.put(species, species);
+		indexesChanged();
+		return true;
 	}
 	
 	/**
@@ -242,8 +439,8 @@ public class SpeciesList implements Iterable<Species> {
 		if (obj.size() != this.size()) {
 			return false;
 		}	
-		for (int i = 0; i < this.size()-1; i++) {
-			if ( !(this.get(i).equals(obj.get(i))) ) {
+		for (int i = 0; i < this.size(); i++) {
+			if ( !(this.elements[i].equals(obj.elements[i])) ) {
 				return false;
 			}
 		}
@@ -261,75 +458,414 @@ public class SpeciesList implements Iterable<Species> {
 	    if (index < 0 || index >= size()) {
 	        throw new IndexOutOfBoundsException("Index is not in range.");
 	    }
-	    if (head == null) {
-	        throw new NullPointerException("List is empty.");
-	    }
-	    int counter = 0;
-	    Node temp = head;
-	    while (temp != null) {
-	    	if (counter == index) {
-	    		break;
-	    	} else {
-	    		temp = temp.next;
-	    		counter++;
-	    	}
-	    }
-	    
-	    return temp.data;
+	    return elements[index];
 	}
 	
 	/**
 	 * Returns a SpeciesList with all elements in this SpeciesList that match the keyword.
+	 * The search uses a trigram index over the names of the elements, which is built on the first search after the
+	 * list is modified.
 	 * @param keyword	the key word to search for in this list.
 	 * @return	a list of Species objects that contain the specified keyword in either 
-	 * the common name or the scientific name.
+	 * the common name or the scientific name, or null if no element matches.
+	 * @throws IllegalArgumentException	if the keyword is null or empty.
 	 */
 	public SpeciesList getByName(String keyword) {
 		if (keyword == null || keyword.equals("")) {
 			throw new IllegalArgumentException("Null/empty keywords are not allowed");
 		}
-		SpeciesList output = new SpeciesList();
-		String key = keyword.toLowerCase();
-		for (Species s : this) {
-			if (s.getCommonName().toLowerCase().contains(key)) {
-				output.add(s);
-			} else if (s.getScientificName().toLowerCase().contains(key)) {
-				output.add(s);
+		long start = Metrics.start();
+		try {
+			NameIndex names = nameIndex();
+			int[] matches = names.search(Species.fold(keyword));
+			if (matches.length == 0) {
+				return null;
+			}
+			// matches are in ascending order, so each one is appended
+			SpeciesList output = new SpeciesList(readOnly);
+			for (int o : matches) {
+				output.append(names.get(o));
+			}
+			return output;
+		} finally {
+			Metrics.NAME_SEARCH.stop(start);
+		}
+	}
+	
+	/**
+	 * Returns one page of the elements of this SpeciesList that match the keyword: the matches getByName() returns,
+	 * less the first offset of them, and at most limit of them. Matches are found in ascending order and the search
+	 * stops as soon as the page is full, so the first page of a keyword that matches most elements is fast.
+	 * @param keyword	the key word to search for in this list.
+	 * @param offset	number of matches to skip.
+	 * @param limit	the maximum number of elements to return.
+	 * @return	a list of at most limit Species objects that contain the specified keyword in either the common name
+	 * 			or the scientific name, or null if no match is on this page.
+	 * @throws IllegalArgumentException	if the keyword is null or empty, the offset is negative or the limit is not
+	 * 			positive.
+	 */
+	public SpeciesList getByName(String keyword, int offset, int limit) {
+		if (keyword == null || keyword.equals("")) {
+			throw new IllegalArgumentException("Null/empty keywords are not allowed");
+		}
+		if (offset < 0 || limit <= 0) {
+			throw new IllegalArgumentException("Offset must not be negative and limit must be positive");
+		}
+		long start = Metrics.start();
+		try {
+			NameIndex names = nameIndex();
+			NameIndex.Cursor cursor = names.cursor(Species.fold(keyword));
+			for (int i = 0; i < offset; i++) {
+				if (cursor.next() < 0)
+					return null;
+			}
+			SpeciesList output = new SpeciesList(readOnly);
+			int o;
+			while (output.size < limit && (o = cursor.next()) >= 0) {
+				output.append(names.get(o));
 			}
+			return output.size == 0 ? null : output;
+		} finally {
+			Metrics.NAME_SEARCH.stop(start);
 		}
-		if (output.size() != 0) {
+	}
+	
+	/**
+	 * Returns a sequential stream of the elements of this SpeciesList that match the keyword, in ascending order.
+	 * The stream is lazy: each match is found only when the stream needs it, so operations such as skip(), limit()
+	 * and findFirst() stop the search early. The stream searches the elements this list had when it was created.
+	 * @param keyword	the key word to search for in this list.
+	 * @return	a stream of the Species objects that contain the specified keyword in either the common name or the
+	 * 			scientific name.
+	 * @throws IllegalArgumentException	if the keyword is null or empty.
+	 */
+	public Stream<Species> streamByName(String keyword) {
+		if (keyword == null || keyword.equals("")) {
+			throw new IllegalArgumentException("Null/empty keywords are not allowed");
+		}
+		NameIndex names = nameIndex();
+		NameIndex.Cursor cursor = names.cursor(Species.fold(keyword));
+		int characteristics = Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL;
+		return StreamSupport.stream(new Spliterators.AbstractSpliterator<Species>(Long.MAX_VALUE, characteristics) {
+			@Override
+			public boolean tryAdvance(Consumer<? super Species> action) {
+				int o = cursor.next();
+				if (o < 0)
+					return false;
+				action.accept(names.get(o));
+				return true;
+			}
+
+			@Override
+			public Comparator<? super Species> getComparator() {
+				return null; // natural order
+			}
+		}, false);
+	}
+	
+	/**
+	 * Performs the given action on each element of this SpeciesList that matches the keyword, in ascending order,
+	 * without collecting the matches into a new list. The elements matched are the ones getByName() returns.
+	 * @param keyword	the key word to search for in this list.
+	 * @param action	action to perform on each matching element.
+	 * @return	the number of matching elements.
+	 * @throws IllegalArgumentException	if the keyword is null or empty, or the action is null.
+	 */
+	public int forEachByName(String keyword, Consumer<? super Species> action) {
+		if (keyword == null || keyword.equals("")) {
+			throw new IllegalArgumentException("Null/empty keywords are not allowed");
+		}
+		if (action == null) {
+			throw new IllegalArgumentException("Null objects are not allowed");
+		}
+		long start = Metrics.start();
+		try {
+			NameIndex names = nameIndex();
+			int[] matches = names.search(Species.fold(keyword));
+			for (int o : matches) {
+				action.accept(names.get(o));
+			}
+			return matches.length;
+		} finally {
+			Metrics.NAME_SEARCH.stop(start);
+		}
+	}
+	
+	/**
+	 * Returns up to k elements of this SpeciesList, in ascending order, whose common name or scientific name starts
+	 * with the specified prefix, ignoring case. The search uses a prefix tree over the names of the elements, which
+	 * is built on the first search after the list is modified, so it is fast enough to call on every keystroke.
+	 * @param prefix	the beginning of the names to search for.
+	 * @param k	the maximum number of elements to return.
+	 * @return	a list of at most k Species objects whose common name or scientific name starts with the prefix,
+	 * 			or null if no element matches.
+	 * @throws IllegalArgumentException	if the prefix is null or empty, or k is not positive.
+	 */
+	public SpeciesList autocomplete(String prefix, int k) {
+		if (prefix == null || prefix.equals("")) {
+			throw new IllegalArgumentException("Null/empty prefixes are not allowed");
+		}
+		if (k <= 0) {
+			throw new IllegalArgumentException("Number of results must be positive");
+		}
+		long start = Metrics.start();
+		try {
+			if (prefixTrie == null) {
+				prefixTrie = new PrefixTrie(ordered());
+			}
+			Species[] matches = prefixTrie.complete(Species.fold(prefix), k);
+			if (matches.length == 0) {
+				return null;
+			}
+			SpeciesList output = new SpeciesList(readOnly);
+			for (Species s : matches) {
+				output.append(s);
+			}
+			return output;
+		} finally {
+			Metrics.PREFIX_SEARCH.stop(start);
+		}
+	}
+	
+	/**
+	 * Returns a SpeciesList with all elements in this SpeciesList that are present in the specified county.
+	 * The search uses an index from each county to its species, which is built on the first search after the list
+	 * or the counties of its elements are modified, so it takes time proportional to the number of matches.
+	 * @param county	the county to search for.
+	 * @return	a list of the Species objects present in the county, in ascending order, or null if no element is
+	 * 			present in the county.
+	 * @throws IllegalArgumentException	if the county is null or empty.
+	 */
+	public SpeciesList getByCounty(String county) {
+		if (county == null || county.equals("")) {
+			throw new IllegalArgumentException("Null/empty counties are not allowed");
+		}
+		long start = Metrics.start();
+		try {
+			CountyIndex counties = countyIndex();
+			int[] matches = counties.species(Counties.idOf(county));
+			if (matches.length == 0) {
+				return null;
+			}
+			SpeciesList output = new SpeciesList(readOnly);
+			for (int o : matches) {
+				output.append(counties.get(o));
+			}
+			return output;
+		} finally {
+			Metrics.FILTER_SEARCH.stop(start);
+		}
+	}
+	
+	/**
+	 * Returns a SpeciesList with all elements in this SpeciesList that match the specified filter.
+	 * The filter is evaluated from indexes over the attributes and counties of the elements, which are built on the
+	 * first query after the list is modified.
+	 * @param query	the filter to match.
+	 * @return	a list of the matching Species objects, in ascending order, or null if no element matches.
+	 * @throws IllegalArgumentException	if the filter is null.
+	 */
+	public SpeciesList query(SpeciesQuery query) {
+		if (query == null) {
+			throw new IllegalArgumentException("Null queries are not allowed");
+		}
+		long start = Metrics.start();
+		try {
+			if (attributeIndex == null) {
+				attributeIndex = new AttributeIndex(ordered());
+			}
+			BitSet matches = query.evaluate(attributeIndex, countyIndex());
+			if (matches.isEmpty()) {
+				return null;
+			}
+			SpeciesList output = new SpeciesList(readOnly);
+			for (int o = matches.nextSetBit(0); o >= 0; o = matches.nextSetBit(o + 1)) {
+				output.append(attributeIndex.get(o));
+			}
 			return output;
-		} else {
-			return null;
+		} finally {
+			Metrics.FILTER_SEARCH.stop(start);
+		}
+	}
+	
+	/**
+	 * Returns the totals of the elements in this SpeciesList that match the specified filter: their number, their
+	 * number for each value of every attribute and in each county, and the elements present in the most counties.
+	 * The totals are computed in a single pass over the matching elements, found from the same indexes as query(),
+	 * without building a list of them (see SpeciesAggregation).
+	 * @param query	the filter to match; a filter with no terms matches every element.
+	 * @param top	largest number of most widespread elements to keep.
+	 * @return	the totals of the matching elements.
+	 * @throws IllegalArgumentException	if the filter is null or top is negative.
+	 */
+	public SpeciesAggregation aggregate(SpeciesQuery query, int top) throws IllegalArgumentException {
+		if (query == null) {
+			throw new IllegalArgumentException("Null queries are not allowed");
+		}
+		if (top < 0) {
+			throw new IllegalArgumentException("Number of results cannot be negative");
+		}
+		long start = Metrics.start();
+		try {
+			if (attributeIndex == null) {
+				attributeIndex = new AttributeIndex(ordered());
+			}
+			CountyIndex counties = countyIndex();
+			return new SpeciesAggregation(ordered(), counties.size(), query.evaluate(attributeIndex, counties), top);
+		} finally {
+			Metrics.AGGREGATE.stop(start);
+		}
+	}
+	
+	/**
+	 * Returns the index from each county to the elements of this list present in it, building it if needed.
+	 * @return	the county index of this list.
+	 */
+	private CountyIndex countyIndex() {
+		if (countyIndex == null) {
+			countyIndex = new CountyIndex(ordered());
+		}
+		return countyIndex;
+	}
+	
+	/**
+	 * Returns the elements of this SpeciesList whose common name or scientific name is within the specified edit
+	 * distance of the input name, ignoring case. The distance between two names is the number of single character
+	 * insertions, deletions and substitutions needed to turn one into the other, so misspelled names still match.
+	 * The search uses a BK-tree over the names of the elements, which is built on the first search after the list is
+	 * modified.
+	 * @param name	the name to search for.
+	 * @param maxDistance	the largest distance between the input name and the name of a match.
+	 * @return	the matching Species objects, ordered by their distance to the input name and then in ascending
+	 * 			order, or null if no element matches.
+	 * @throws IllegalArgumentException	if the name is null or empty, or maxDistance is negative.
+	 */
+	public ArrayList<Species> getByNameFuzzy(String name, int maxDistance) {
+		if (name == null || name.equals("")) {
+			throw new IllegalArgumentException("Null/empty names are not allowed");
+		}
+		if (maxDistance < 0) {
+			throw new IllegalArgumentException("Distance cannot be negative");
+		}
+		long start = Metrics.start();
+		try {
+			if (bkTree == null) {
+				bkTree = new BKTree(ordered());
+			}
+			HashMap<Integer, Integer> matches = bkTree.search(Species.fold(name), maxDistance);
+			if (matches.isEmpty()) {
+				return null;
+			}
+			// ordinals follow the order of the list, so ties in distance are broken by compareTo
+			ArrayList<Integer> ordinals = new ArrayList<>(matches.keySet());
+			ordinals.sort((a, b) -> {
+				int d = Integer.compare(matches.get(a), matches.get(b));
+				return d != 0 ? d : Integer.compare(a, b);
+			});
+			Species[] species = ordered();
+			ArrayList<Species> output = new ArrayList<>(ordinals.size());
+			for (int o : ordinals) {
+				output.add(species[o]);
+			}
+			return output;
+		} finally {
+			Metrics.FUZZY_SEARCH.stop(start);
+		}
+	}
+	
+	/**
+	 * Returns the elements of this list in ascending order, as the array shared by the search indexes.
+	 * @return	the elements of this list; the array must not be modified.
+	 */
+	private Species[] ordered() {
+		if (ordered == null) {
+			ordered = toArray();
+		}
+		return ordered;
+	}
+	
+	/**
+	 * Drops the search indexes after this list is modified, so they are rebuilt on their next use.
+	 */
+	private void indexesChanged() {
+		nameIndex = null;
+		prefixTrie = null;
+		bkTree = null;
+		countyIndex = null;
+		attributeIndex = null;
+		scientificNames = null;
+		ordered = null;
+	}
+	
+	/**
+	 * Returns the element of this SpeciesList with the specified scientific name, ignoring case.
+	 * The element is found in a hash map from the scientific names of the elements, which is built on the first
+	 * search after the list is modified.
+	 * @param name	the scientific name to search for.
+	 * @return	the first element in ascending order with that scientific name, or null if there is none.
+	 * @throws IllegalArgumentException	if the name is null or empty.
+	 */
+	public Species getByScientificName(String name) throws IllegalArgumentException {
+		if (name == null || name.equals("")) {
+			throw new IllegalArgumentException("Null/empty keywords are not allowed");
+		}
+		return scientificNames().get(Species.fold(name));
+	}
+	
+	/**
+	 * Returns the map from the folded scientific name of each element to the first element with it, building it if
+	 * needed.
+	 * @return	the scientific name map of this list.
+	 */
+	private HashMap<String, Species> scientificNames() {
+		if (scientificNames == null) {
+			HashMap<String, Species> map = new HashMap<>(Math.max(16, size * 4 / 3 + 1));
+			for (int i = 0; i < size; i++) {
+				map.putIfAbsent(elements[i].scientificKey(), elements[i]);
+			}
+			scientificNames = map;
 		}
+		return scientificNames;
+	}
+	
+	/**
+	 * Returns the trigram index over the names of the elements in this list, building it if needed.
+	 * @return	the name index of this list.
+	 */
+	private NameIndex nameIndex() {
+		if (nameIndex == null) {
+			nameIndex = new NameIndex(ordered());
+		}
+		return nameIndex;
+	}
+	
+	/**
+	 * Returns an array containing all of the elements in this list in ascending order.
+	 * @return	an array of the elements in this list.
+	 */
+	public Species[] toArray() {
+		return Arrays.copyOf(elements, size);
 	}
 	
 	/**
 	 * Returns the index of the first occurrence of the specified element, or -1 if the element is not in the list.
+	 * The element is found by its hash and its position by a binary search, rather than by a scan of the list.
 	 * @param o	element to be searched for.
 	 * @return	the index of the specified element.
+	 * @throws IllegalArgumentException	if the element is null or not a Species.
 	 */
 	public int indexOf(Object o) {
 		if (o == null) {
 			throw new IllegalArgumentException("Null objects not allowed.");
-		} else if (!(o instanceof SpeciesList)) {
-			throw new IllegalArgumentException("Argument not of specified type, SpeciesList.");
+		} else if (!(o instanceof Species)) {
+			throw new IllegalArgumentException("Argument not of specified type, Species.");
 		}
 		if (size() == 0) {
 			return -1;
 		}
 		Species sp = (Species) o;
-		int counter = 0;
-		Node temp = head;
-		while (temp != null) {	
-			if (temp.data.equals(sp)) {
-				return counter;
-			}
-			counter++;
-			temp = temp.next;
-		}
-		
-		return -1;
+		Species element = elementIndex().get(sp);
+		return element == null ? -1 : position(element);
 	}
 	
 	/**
@@ -338,6 +874,7 @@ public class SpeciesList implements Iterable<Species> {
 	 * @return	true if the object was successfully removed, false otherwise.
 	 */
 	public boolean remove(Object o) {
+		checkMutable();
 		if (o == null) {
 			return false;
 		} else if (!(o instanceof Species)) {
@@ -346,37 +883,14 @@ public class SpeciesList implements Iterable<Species> {
 		if (size() == 0) {
 			return false;
 		}
-		Node temp = head;
-		while (temp != null) {
-			if (temp.data.equals(o)) {
-				break;
-			} else {
-				temp = temp.next;
-			}
-		}
-		if (temp == null)
+		Species element = elementIndex().remove(o);
+		if (element == null)
 			return false; // element not in list.
-		
-		if (temp == head) {
-			if (head.next != null) {
-				head = head.next;
-				return true;
-			} else {
-				head = null;
-				tail = null;
-				return true;
-			}
-		} else if (temp == tail) {
-		    tail = tail.prev;
-		    tail.next = null;
-		    return true;
-		} else {
-			Node p = temp.prev;
-			Node a = temp.next;
-			p.next = a;
-			a.prev = p;
-			return true;
-		}	
+		int i = position(element);
+		System.arraycopy(elements, i + 1, elements, i, size - i - 1);
+		elements[--size] = null;
+		indexesChanged();
+		return true;
 	}
 	
 	/**
@@ -417,7 +931,7 @@ public class SpeciesList implements Iterable<Species> {
 	 */
 	private class Itr implements Iterator<Species> {
 
-        protected Node current = head;
+        protected int index = 0; // index of the next element
         
         Itr() {}
 
@@ -427,7 +941,7 @@ public class SpeciesList implements Iterable<Species> {
          */
 		@Override
 		public boolean hasNext() {
-			return current != null;
+			return index < size;
 		}
 
 		/**
@@ -440,9 +954,7 @@ public class SpeciesList implements Iterable<Species> {
 			if (!hasNext()) {
                 throw new NoSuchElementException("No more elements in this list");
             } else {
-            	Species species = current.data; // grab the species from the current node
-                current = current.next;	// move 'current' to the next element
-                return species;
+                return elements[index++];
             }
 		}
         
@@ -461,8 +973,7 @@ public class SpeciesList implements Iterable<Species> {
 	 */
 	private class Ltr extends Itr implements ListIterator<Species> {
 		
-		private Node lastRet;
-		private int index = 0;
+		private int lastRet = -1; // index of the last element returned, or -1 if there is none
 
 		/**
 		 * Constructs a ListIterator
@@ -471,16 +982,6 @@ public class SpeciesList implements Iterable<Species> {
 		public Ltr(int index) {
 			if (index < 0 || index > size)
                 throw new IndexOutOfBoundsException("Index: " + index);
-			lastRet = null;
-			if (index == size) {
-				current = null;
-			} else {
-				Node x = head;
-				for (int i = 0; i < index; i++) {
-					x = x.next;
-				}
-				current = x;
-			}
 			this.index = index;
 		}
 				
@@ -502,10 +1003,8 @@ public class SpeciesList implements Iterable<Species> {
 			if (!hasNext()) {
                 throw new NoSuchElementException("No more elements in this list");
             } else {
-            	lastRet = current;
-                current = current.next;	// move 'current' to the next element
-                index++;
-                return lastRet.data;
+            	lastRet = index++;
+                return elements[lastRet];
             }
 		}
 
@@ -527,14 +1026,8 @@ public class SpeciesList implements Iterable<Species> {
 			if (!hasPrevious()) {
                 throw new NoSuchElementException("No previous element");
             }
-			if (current == null) {
-				current = tail;
-			} else {
-				current = current.prev;
-			}
-			lastRet = current;
-			index--;
-			return lastRet.data;
+			lastRet = --index;
+			return elements[lastRet];
 		}
 
 		/**
@@ -569,10 +1062,15 @@ public class SpeciesList implements Iterable<Species> {
 		 */
 		@Override
 		public void set(Species e) {
-			if (lastRet == null) {
+			checkMutable();
+			if (lastRet < 0) {
                 throw new IllegalStateException();
             }
-            lastRet.data = e;			
+            HashMap<Species, Species> elementIndex = elementIndex();
+            elementIndex.remove(elements[lastRet]);
+            elements[lastRet] = e;
+            elementIndex.put(e, e);
+            indexesChanged();
 		}
 
 		/**
@@ -586,4 +1084,132 @@ public class SpeciesList implements Iterable<Species> {
 	
 	}
 	
+	/**
+	 * Returns a new Builder, which collects species in any order and builds a SpeciesList from them.
+	 * @return	an empty builder.
+	 */
+	public static Builder builder() { return new Builder(); }
+	
+	/**
+	 * Collects species, and the counties they are present in, in any order, and builds a SpeciesList from them.
+	 * Equal species are grouped through a hash table as they are added, merging their counties into the first one
+	 * added, and the distinct species are sorted once when the list is built, so building a list of n species takes
+	 * O(n log n) time instead of the O(n^2) of adding them to a SpeciesList one at a time.
+	 * A builder is not safe for use by several threads; each thread can fill its own builder, and the builders are
+	 * then combined with addAll().
+	 */
+	public static class Builder {
+		
+		private LinkedHashMap<Species, Species> species = new LinkedHashMap<>();
+		
+		private Builder() {}
+		
+		/**
+		 * Adds the specified species. If an equal species was already added, the counties of the input species are
+		 * merged into it.
+		 * @param s	species to add.
+		 * @return	this builder.
+		 * @throws IllegalArgumentException	if the species is null.
+		 * @throws IllegalStateException	if the list was already built.
+		 */
+		public Builder add(Species s) throws IllegalArgumentException, IllegalStateException {
+			if (s == null)
+				throw new IllegalArgumentException("Null objects are not allowed");
+			int before = size();
+			merge(s);
+			Metrics.added(size() == before);
+			return this;
+		}
+		
+		/**
+		 * Adds the specified species and the county it is present in. If an equal species was already added, the
+		 * counties of the input species and the input county are merged into it.
+		 * @param s	species to add.
+		 * @param county	county the species is present in.
+		 * @return	this builder.
+		 * @throws IllegalArgumentException	if the species is null, or the county is null or empty.
+		 * @throws IllegalStateException	if the list was already built.
+		 */
+		public Builder add(Species s, String county) throws IllegalArgumentException, IllegalStateException {
+			if (s == null)
+				throw new IllegalArgumentException("Null objects are not allowed");
+			if (county == null || county.equals(""))
+				throw new IllegalArgumentException("Null/empty counties are not allowed");
+			int before = size();
+			merge(s).addCounty(county);
+			Metrics.added(size() == before);
+			return this;
+		}
+		
+		/**
+		 * Adds every species collected by another builder, which must not be used afterwards.
+		 * @param other	builder whose species are added.
+		 * @return	this builder.
+		 * @throws IllegalArgumentException	if the other builder is null.
+		 * @throws IllegalStateException	if either list was already built.
+		 */
+		public Builder addAll(Builder other) throws IllegalArgumentException, IllegalStateException {
+			if (other == null)
+				throw new IllegalArgumentException("Null objects are not allowed");
+			if (other == this)
+				return this;
+			if (other.species == null)
+				throw new IllegalStateException("The list was already built");
+			for (Species s : other.species.keySet()) {
+				merge(s);
+			}
+			other.species = null;
+			return this;
+		}
+		
+		/**
+		 * Returns the number of distinct species added so far.
+		 * @return	number of species collected.
+		 */
+		public int size() {
+			return species == null ? 0 : species.size();
+		}
+		
+		/**
+		 * Sorts the species collected and returns them as a SpeciesList. Species with equal names keep the order
+		 * they were first added in. The builder cannot be used afterwards.
+		 * @return	a SpeciesList with the species collected.
+		 * @throws IllegalStateException	if the list was already built.
+		 */
+		public SpeciesList build() throws IllegalStateException {
+			check();
+			Species[] elements = species.keySet().toArray(EMPTY);
+			Arrays.parallelSort(elements); // stable, and sequential for small arrays
+			SpeciesList list = new SpeciesList(elements, elements.length);
+			list.elementIndex = new HashMap<>(species);
+			species = null;
+			return list;
+		}
+		
+		/**
+		 * Records the specified species, or merges its counties into the equal species already recorded.
+		 * @param s	species to record.
+		 * @return	the species recorded for it.
+		 */
+		private Species merge(Species s) {
+			check();
+			Species existing = species.putIfAbsent(s, s);
+			if (existing == null)
+				return s;
+			if (existing != s)
+				existing.addCounties(s);
+			return existing;
+		}
+		
+		/**
+		 * Checks that the list was not built yet.
+		 * @throws IllegalStateException	if the list was already built.
+		 */
+		private void check() throws IllegalStateException {
+			if (species == null)
+				throw new IllegalStateException("The list was already built");
+		}
+		
+	}
+	
 }
\ No newline at end of file
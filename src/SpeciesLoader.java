@@ -0,0 +1,289 @@
+package project3;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+/**
+ * This class loads the data set "Biodiversity by County - Distribution of Animals, Plants and Natural Communities"
+ * from data.ny.gov into a SpeciesList. Each row of the CSV file names one species present in one county.
+ * Rows that are missing columns are printed to System.err, and rows with a missing county or species field are
+ * ignored.
+ * Small files are read with a streaming CSVParser. Large files are memory-mapped and parsed straight from the
+ * mapped bytes, decoding only the columns a Species keeps, and can be split into chunks that are parsed in parallel.
+ * @author Adam Soliman
+ * @version 3-6-24
+ */
+public class SpeciesLoader {
+
+	/**
+	 * Number of leading columns read from each row: County, Category, Taxonomic Group, Taxonomic Subgroup,
+	 * Scientific Name, Common Name, Year Last Documented and NY Listing Status.
+	 */
+	static final int COLUMNS = 8;
+
+	/**
+	 * Bit mask of the columns kept from each row. Year Last Documented (column 6) and the columns after
+	 * NY Listing Status are never decoded.
+	 */
+	static final long KEPT_COLUMNS = 0b10111111L;
+
+	/**
+	 * Files at least this many bytes long are memory-mapped by load().
+	 */
+	static final long MAPPED_THRESHOLD = 16L << 20;
+
+	/**
+	 * Largest region of a file that is mapped at once.
+	 */
+	static final int MAX_REGION = 1 << 30;
+
+	/**
+	 * Largest chunk of a mapped region that one fork-join task parses without splitting it further.
+	 */
+	static final int CHUNK_SIZE = 1 << 20;
+
+	private SpeciesLoader() {}
+
+	/**
+	 * Loads the species in the specified CSV file, memory-mapping the file if it is large and parsing it on all
+	 * available cores when there is more than one.
+	 * @param file	CSV file to load.
+	 * @return	a SpeciesList with the species in the file.
+	 * @throws IOException	if the file cannot be read.
+	 */
+	public static SpeciesList load(File file) throws IOException {
+		if (file.length() >= MAPPED_THRESHOLD) {
+			if (Runtime.getRuntime().availableProcessors() > 1)
+				return loadParallel(file);
+			return loadMapped(file);
+		}
+		return loadStreaming(file);
+	}
+
+	/**
+	 * Loads the species in the specified CSV file by reading it through a CSVParser.
+	 * @param file	CSV file to load.
+	 * @return	a SpeciesList with the species in the file.
+	 * @throws IOException	if the file cannot be read.
+	 */
+	public static SpeciesList loadStreaming(File file) throws IOException {
+		long start = Metrics.start();
+		SpeciesList.Builder list = SpeciesList.builder();
+		String[] row = new String[COLUMNS];
+		int count = 0;
+		try (CSVParser parser = new CSVParser(
+				new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+			parser.next(row); // skip the column headings
+			while ((count = parser.next(row)) != -1) {
+				addRow(list, row, count);
+			}
+		}
+		SpeciesList result = list.build();
+		Metrics.LOAD.stop(start);
+		return result;
+	}
+
+	/**
+	 * Loads the species in the specified CSV file by memory-mapping it and parsing the mapped bytes.
+	 * Only the columns in KEPT_COLUMNS are decoded. Files larger than MAX_REGION are mapped one region at a time,
+	 * each region ending at a line break; line breaks inside quoted fields are assumed not to occur.
+	 * @param file	CSV file to load.
+	 * @return	a SpeciesList with the species in the file.
+	 * @throws IOException	if the file cannot be read.
+	 */
+	public static SpeciesList loadMapped(File file) throws IOException {
+		long start = Metrics.start();
+		SpeciesList.Builder list = SpeciesList.builder();
+		String[] row = new String[COLUMNS];
+		int count = 0;
+		boolean header = true;
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+				FileChannel channel = raf.getChannel()) {
+			long length = channel.size();
+			long offset = 0;
+			while (offset < length) {
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+						Math.min(MAX_REGION, length - offset));
+				int end = regionEnd(buffer, offset + buffer.limit() == length);
+				MappedCSVParser parser = new MappedCSVParser(buffer, 0, end);
+				if (header) {
+					parser.next(row, 0); // skip the column headings
+					header = false;
+				}
+				while ((count = parser.next(row, KEPT_COLUMNS)) != -1) {
+					addRow(list, row, count);
+				}
+				offset += end;
+			}
+		}
+		SpeciesList result = list.build();
+		Metrics.LOAD.stop(start);
+		return result;
+	}
+
+	/**
+	 * Loads the species in the specified CSV file by memory-mapping it and parsing chunks of the mapped bytes in
+	 * parallel on the common fork-join pool. Each mapped region is split at line breaks into chunks of at most
+	 * CHUNK_SIZE bytes; each chunk is parsed into its own SpeciesList.Builder, and the builders are combined
+	 * pairwise with SpeciesList.Builder.addAll(), which merges the counties of equal species. The species are sorted
+	 * once, after every chunk is parsed.
+	 * As in loadMapped(), line breaks inside quoted fields are assumed not to occur.
+	 * @param file	CSV file to load.
+	 * @return	a SpeciesList with the species in the file.
+	 * @throws IOException	if the file cannot be read.
+	 */
+	public static SpeciesList loadParallel(File file) throws IOException {
+		long started = Metrics.start();
+		SpeciesList.Builder list = SpeciesList.builder();
+		String[] row = new String[COLUMNS];
+		boolean header = true;
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+				FileChannel channel = raf.getChannel()) {
+			long length = channel.size();
+			long offset = 0;
+			while (offset < length) {
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+						Math.min(MAX_REGION, length - offset));
+				int end = regionEnd(buffer, offset + buffer.limit() == length);
+				int start = 0;
+				if (header) {
+					MappedCSVParser parser = new MappedCSVParser(buffer, 0, end);
+					parser.next(row, 0); // skip the column headings
+					start = parser.position();
+					header = false;
+				}
+				list.addAll(ForkJoinPool.commonPool().invoke(new ChunkTask(buffer, start, end)));
+				offset += end;
+			}
+		}
+		SpeciesList result = list.build();
+		Metrics.LOAD.stop(started);
+		return result;
+	}
+
+	/**
+	 * A fork-join task that parses the records in a range of a mapped region into a new SpeciesList.Builder.
+	 * Ranges longer than CHUNK_SIZE are split at a line break near their middle, and the builders of the two halves
+	 * are combined.
+	 */
+	private static class ChunkTask extends RecursiveTask<SpeciesList.Builder> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final ByteBuffer buffer;
+		private final int start;
+		private final int end;
+
+		/**
+		 * Constructs a task over the bytes of the buffer from start (inclusive) to end (exclusive).
+		 * @param buffer	mapped region of the file.
+		 * @param start	index of the first byte of the first record in the range.
+		 * @param end	index one past the last byte of the last record in the range.
+		 */
+		ChunkTask(ByteBuffer buffer, int start, int end) {
+			this.buffer = buffer;
+			this.start = start;
+			this.end = end;
+		}
+
+		/**
+		 * Parses the range, splitting it first if it is longer than CHUNK_SIZE.
+		 * @return	a builder with the species in the range.
+		 */
+		@Override
+		protected SpeciesList.Builder compute() {
+			if (end - start > CHUNK_SIZE) {
+				int mid = start + (end - start) / 2;
+				while (mid < end && buffer.get(mid - 1) != '\n') {
+					mid++;
+				}
+				if (mid < end) {
+					ChunkTask right = new ChunkTask(buffer, mid, end);
+					right.fork();
+					SpeciesList.Builder left = new ChunkTask(buffer, start, mid).compute();
+					left.addAll(right.join());
+					return left;
+				}
+			}
+			SpeciesList.Builder list = SpeciesList.builder();
+			String[] row = new String[COLUMNS];
+			int count = 0;
+			// each task reads through its own view, since ByteBuffer is not safe for use by several threads
+			MappedCSVParser parser = new MappedCSVParser(buffer.duplicate(), start, end);
+			while ((count = parser.next(row, KEPT_COLUMNS)) != -1) {
+				addRow(list, row, count);
+			}
+			return list;
+		}
+
+	}
+
+	/**
+	 * Finds where the records in a mapped region end.
+	 * @param buffer	mapped region of the file.
+	 * @param last	true if the region reaches the end of the file.
+	 * @return	index one past the last line break in the region, or the limit of the region if it is the last one.
+	 * @throws IOException	if a region that is not the last one holds no line break.
+	 */
+	static int regionEnd(MappedByteBuffer buffer, boolean last) throws IOException {
+		if (last) {
+			return buffer.limit();
+		}
+		for (int i = buffer.limit() - 1; i >= 0; i--) {
+			if (buffer.get(i) == '\n') {
+				return i + 1;
+			}
+		}
+		throw new IOException("Line is longer than " + MAX_REGION + " bytes");
+	}
+
+	/**
+	 * Adds the species and county of one row to the list being built. The row is printed to System.err if it is missing
+	 * columns, and ignored if the county or any species field is null or empty.
+	 * @param list	builder to add the species to.
+	 * @param row	fields of the row.
+	 * @param count	number of fields in the row.
+	 */
+	static void addRow(SpeciesList.Builder list, String[] row, int count) {
+		if (Metrics.ENABLED)
+			Metrics.ROWS_PARSED.increment();
+		if (count < COLUMNS) {
+			if (Metrics.ENABLED)
+				Metrics.ROWS_MALFORMED.increment();
+			// row is missing columns
+			StringBuilder line = new StringBuilder();
+			for (int i = 0; i < count; i++) {
+				if (i > 0)
+					line.append(',');
+				if (row[i] != null)
+					line.append(row[i]);
+			}
+			System.err.println(line);
+			return;
+		}
+		String county = row[0];
+		if (county == null || county.equals("")) { // ignores a set that doensn't have a valid county
+			if (Metrics.ENABLED)
+				Metrics.ROWS_INVALID.increment();
+			return;
+		}
+		try {
+			// row[6] is Year Last Documented, skipped
+			Species current = new Species(row[1], row[2], row[3], row[4], row[5], row[7]);
+			list.add(current, county);
+		} catch (IllegalArgumentException ex) {
+			// catches if any of the inputs are null or empty strings, and ignores it and moves on, as per
+			// instructions.
+			if (Metrics.ENABLED)
+				Metrics.ROWS_INVALID.increment();
+		}
+	}
+
+}
@@ -0,0 +1,175 @@
+package project3;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+/**
+ * This class represents a filter over the species of a SpeciesList, such as "Endangered Animal Amphibians in Albany".
+ * A filter is built by adding terms: each term accepts the species with any of its values for one SpeciesAttribute,
+ * or the species present in any of its counties. A species matches the filter if it matches every term; a filter
+ * with no terms matches every species. Attribute values and county names are compared ignoring case.
+ * The filter is evaluated by SpeciesList.query() from the indexes of the list, intersecting the bitmaps of the most
+ * selective terms first.
+ * @author Adam Soliman
+ * @version 3-6-24
+ */
+public class SpeciesQuery {
+
+	private final EnumMap<SpeciesAttribute, Set<String>> attributes = new EnumMap<>(SpeciesAttribute.class);
+	private final Set<String> counties = new LinkedHashSet<>();
+
+	/**
+	 * Constructs a new filter with no terms, which matches every species.
+	 */
+	public SpeciesQuery() {}
+
+	/**
+	 * Restricts this filter to the species whose value for the attribute is one of the specified values.
+	 * Calling this method again for the same attribute adds values to its term.
+	 * @param attribute	attribute to filter by.
+	 * @param values	accepted values of the attribute.
+	 * @return	this filter.
+	 * @throws IllegalArgumentException	if the attribute is null, no value is given, or a value is null or empty.
+	 */
+	public SpeciesQuery where(SpeciesAttribute attribute, String... values) throws IllegalArgumentException {
+		if (attribute == null) {
+			throw new IllegalArgumentException("Null attributes are not allowed");
+		}
+		attributes.computeIfAbsent(attribute, a -> new LinkedHashSet<>()).addAll(check(values));
+		return this;
+	}
+
+	/**
+	 * Restricts this filter to the species present in at least one of the specified counties.
+	 * Calling this method again adds counties to the same term.
+	 * @param names	accepted counties.
+	 * @return	this filter.
+	 * @throws IllegalArgumentException	if no county is given, or a county is null or empty.
+	 */
+	public SpeciesQuery inCounty(String... names) throws IllegalArgumentException {
+		counties.addAll(check(names));
+		return this;
+	}
+
+	/**
+	 * Returns the terms of this filter on species attributes.
+	 * @return	a read-only map from each filtered attribute to its accepted values.
+	 */
+	public Map<SpeciesAttribute, Set<String>> getAttributes() {
+		return Collections.unmodifiableMap(attributes);
+	}
+
+	/**
+	 * Returns the county term of this filter.
+	 * @return	a read-only set of the accepted counties, empty if this filter has no county term.
+	 */
+	public Set<String> getCounties() {
+		return Collections.unmodifiableSet(counties);
+	}
+
+	/**
+	 * Returns a description of this filter that is the same for every filter matching the same species: terms in
+	 * the order of SpeciesAttribute, values and counties folded as AttributeIndex and Counties fold them, and sorted.
+	 * Used as the key of cached results.
+	 * @return	the normalized description of this filter.
+	 */
+	String key() {
+		StringBuilder key = new StringBuilder();
+		for (Map.Entry<SpeciesAttribute, Set<String>> e : attributes.entrySet()) {
+			TreeSet<String> values = new TreeSet<>();
+			for (String v : e.getValue()) {
+				values.add(AttributeIndex.key(v));
+			}
+			appendTerm(key.append(e.getKey().name()), values);
+		}
+		if (!counties.isEmpty()) {
+			TreeSet<String> names = new TreeSet<>();
+			for (String c : counties) {
+				names.add(Species.fold(c));
+			}
+			appendTerm(key.append("COUNTY"), names);
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Appends the values of a term, each preceded by its length so that no value can be mistaken for several.
+	 * @param key	description being built.
+	 * @param values	sorted values of the term.
+	 */
+	private static void appendTerm(StringBuilder key, TreeSet<String> values) {
+		key.append('(');
+		for (String v : values) {
+			key.append(v.length()).append(':').append(v);
+		}
+		key.append(')');
+	}
+
+	/**
+	 * Checks that values were given and that none is null or empty.
+	 * @param values	input values.
+	 * @return	the values as a list.
+	 * @throws IllegalArgumentException	if no value is given, or a value is null or empty.
+	 */
+	private static ArrayList<String> check(String... values) throws IllegalArgumentException {
+		if (values == null || values.length == 0) {
+			throw new IllegalArgumentException("At least one value is required");
+		}
+		ArrayList<String> list = new ArrayList<>(values.length);
+		for (String v : values) {
+			if (v == null || v.equals("")) {
+				throw new IllegalArgumentException("Null/empty strings are not allowed");
+			}
+			list.add(v);
+		}
+		return list;
+	}
+
+	/**
+	 * Evaluates this filter against the indexes of a list.
+	 * Each term is turned into the union of the bitmaps of its values. Terms are then intersected from the one
+	 * matching the fewest species upwards, stopping as soon as the intersection is empty.
+	 * @param index	attribute index of the list.
+	 * @param countyIndex	county index of the same list.
+	 * @return	bitmap of the ordinals of the matching species.
+	 */
+	BitSet evaluate(AttributeIndex index, CountyIndex countyIndex) {
+		ArrayList<BitSet> terms = new ArrayList<>();
+		for (Map.Entry<SpeciesAttribute, Set<String>> e : attributes.entrySet()) {
+			BitSet term = new BitSet(index.size());
+			for (String value : e.getValue()) {
+				term.or(index.species(e.getKey(), value));
+			}
+			terms.add(term);
+		}
+		if (!counties.isEmpty()) {
+			BitSet term = new BitSet(index.size());
+			for (String county : counties) {
+				for (int o : countyIndex.species(Counties.idOf(county))) {
+					term.set(o);
+				}
+			}
+			terms.add(term);
+		}
+		if (terms.isEmpty()) {
+			BitSet all = new BitSet(index.size());
+			all.set(0, index.size());
+			return all;
+		}
+		for (BitSet term : terms) {
+			if (term.isEmpty())
+				return term;
+		}
+		terms.sort((a, b) -> Integer.compare(a.cardinality(), b.cardinality()));
+		BitSet result = terms.get(0);
+		for (int i = 1; i < terms.size() && !result.isEmpty(); i++) {
+			result.and(terms.get(i));
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,415 @@
+package project3;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+/**
+ * This class serves searches of a SpeciesCatalog over HTTP, answering in JSON. It runs on the HTTP server built into
+ * the JDK, with no other dependencies, and handles every request on its own virtual thread when the JDK supports
+ * them (Java 21 and later), or on a pooled platform thread otherwise. Requests read the current version of the
+ * catalog without locking, so many clients are served at once, even while the catalog is reloaded. Searches by name
+ * and filters go through the query cache of the catalog, so popular searches are answered without searching.
+ * The server answers GET requests on these paths:
+ * /search?q=keyword	species whose common or scientific name contains the keyword; the optional parameters
+ * 						offset and limit return one page of the matches, skipping offset matches and returning at
+ * 						most limit (100 by default when only offset is given);
+ * /county?name=county	species present in the county, optionally filtered further with the parameters category,
+ * 						group, subgroup and status, each matching the value of that attribute ignoring case;
+ * /species?name=scientific name	details of the species with that scientific name, including its counties;
+ * /stats	totals of the species, optionally filtered with the parameters county, category, group, subgroup and
+ * 			status: their number, their number for each value of every attribute and in each county, and the top
+ * 			species present in the most counties (20 by default, or the number in the parameter top);
+ * /metrics	the metrics of the program as plain text (see Metrics).
+ * Lists of species are JSON arrays of objects; errors are a JSON object with an "error" member.
+ * @author Adam Soliman
+ * @version 3-6-24
+ */
+public class SpeciesServer {
+
+	/**
+	 * Number of matches on a page of /search when only the offset is given.
+	 */
+	static final int PAGE_SIZE = 100;
+
+	/**
+	 * Number of most widespread species listed by /stats when the parameter top is not given.
+	 */
+	static final int TOP_SIZE = 20;
+
+	/**
+	 * Names of the parameters that filter by each SpeciesAttribute, in the order of SpeciesAttribute.values().
+	 */
+	private static final String[] ATTRIBUTE_PARAMETERS = { "category", "group", "subgroup", "status" };
+
+	private final SpeciesCatalog catalog;
+	private final HttpServer server;
+	private final ExecutorService executor;
+
+	/**
+	 * Constructs a server for the specified catalog, listening on the specified port. The server does not accept
+	 * requests until it is started.
+	 * @param catalog	catalog to search.
+	 * @param port	TCP port to listen on, or 0 for any free port.
+	 * @throws IOException	if the port cannot be bound.
+	 * @throws IllegalArgumentException	if the catalog is null or the port is out of range.
+	 */
+	public SpeciesServer(SpeciesCatalog catalog, int port) throws IOException, IllegalArgumentException {
+		if (catalog == null) {
+			throw new IllegalArgumentException("Null objects are not allowed");
+		}
+		if (port < 0 || port > 65535) {
+			throw new IllegalArgumentException("Port is not in range.");
+		}
+		this.catalog = catalog;
+		server = HttpServer.create(new InetSocketAddress(port), 0);
+		executor = newExecutor();
+		server.setExecutor(executor);
+		server.createContext("/search", this::search);
+		server.createContext("/county", this::county);
+		server.createContext("/species", this::species);
+		server.createContext("/stats", this::stats);
+		server.createContext("/metrics", SpeciesServer::metrics);
+	}
+
+	/**
+	 * Returns an executor that runs each task on a new virtual thread, falling back to a cached pool of platform
+	 * threads on JDKs without virtual threads.
+	 * @return	the executor for requests.
+	 */
+	private static ExecutorService newExecutor() {
+		try {
+			Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) m.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	/**
+	 * Starts accepting requests.
+	 */
+	public void start() {
+		server.start();
+	}
+
+	/**
+	 * Stops accepting requests, waiting up to the specified time for requests being handled to finish.
+	 * @param delay	maximum time to wait, in seconds.
+	 */
+	public void stop(int delay) {
+		server.stop(delay);
+		executor.shutdown();
+	}
+
+	/**
+	 * Returns the port the server listens on.
+	 * @return	the TCP port of the server.
+	 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * Handles /search: lists the species whose names contain the keyword in the parameter q, or one page of them if
+	 * the parameter offset or limit is given.
+	 * @param exchange	request and response.
+	 * @throws IOException	if the response cannot be sent.
+	 */
+	private void search(HttpExchange exchange) throws IOException {
+		HashMap<String, String> params = parameters(exchange);
+		if (params == null)
+			return;
+		String keyword = params.get("q");
+		if (keyword == null || keyword.equals("")) {
+			error(exchange, 400, "Missing parameter q");
+			return;
+		}
+		if (!params.containsKey("offset") && !params.containsKey("limit")) {
+			send(exchange, 200, toJson(catalog.getByName(keyword)));
+			return;
+		}
+		try {
+			int offset = Integer.parseInt(params.getOrDefault("offset", "0"));
+			int limit = Integer.parseInt(params.getOrDefault("limit", Integer.toString(PAGE_SIZE)));
+			send(exchange, 200, toJson(catalog.get().getByName(keyword, offset, limit)));
+		} catch (NumberFormatException ex) {
+			error(exchange, 400, "offset and limit must be numbers");
+		} catch (IllegalArgumentException ex) {
+			error(exchange, 400, ex.getMessage());
+		}
+	}
+
+	/**
+	 * Handles /county: lists the species present in the county in the parameter name, filtered by the attribute
+	 * parameters category, group, subgroup and status when they are given.
+	 * @param exchange	request and response.
+	 * @throws IOException	if the response cannot be sent.
+	 */
+	private void county(HttpExchange exchange) throws IOException {
+		HashMap<String, String> params = parameters(exchange);
+		if (params == null)
+			return;
+		String county = params.get("name");
+		if (county == null || county.equals("")) {
+			error(exchange, 400, "Missing parameter name");
+			return;
+		}
+		try {
+			send(exchange, 200, toJson(catalog.query(filter(params, "name"))));
+		} catch (IllegalArgumentException ex) {
+			error(exchange, 400, ex.getMessage());
+		}
+	}
+
+	/**
+	 * Handles /stats: sends the totals of the species matching the filter parameters county, category, group,
+	 * subgroup and status, listing as many of the most widespread species as the parameter top.
+	 * @param exchange	request and response.
+	 * @throws IOException	if the response cannot be sent.
+	 */
+	private void stats(HttpExchange exchange) throws IOException {
+		HashMap<String, String> params = parameters(exchange);
+		if (params == null)
+			return;
+		try {
+			int top = Integer.parseInt(params.getOrDefault("top", Integer.toString(TOP_SIZE)));
+			SpeciesAggregation totals = catalog.aggregate(filter(params, "county"), top);
+			StringBuilder json = new StringBuilder("{\"count\":").append(totals.getCount());
+			for (int i = 0; i < ATTRIBUTE_PARAMETERS.length; i++) {
+				json.append(",\"").append(ATTRIBUTE_PARAMETERS[i]).append("\":");
+				appendCounts(json, totals.countBy(SpeciesAttribute.values()[i]));
+			}
+			json.append(",\"county\":");
+			appendCounts(json, totals.countByCounty());
+			json.append(",\"mostWidespread\":").append(toJson(totals.getMostWidespread()));
+			send(exchange, 200, json.append('}').toString());
+		} catch (NumberFormatException ex) {
+			error(exchange, 400, "top must be a number");
+		} catch (IllegalArgumentException ex) {
+			error(exchange, 400, ex.getMessage());
+		}
+	}
+
+	/**
+	 * Builds the filter given by the county parameter and the parameters category, group, subgroup and status of a
+	 * request.
+	 * @param params	parameters of the request.
+	 * @param county	name of the parameter that holds the county.
+	 * @return	the filter, with a term for each of those parameters that is given.
+	 * @throws IllegalArgumentException	if one of those parameters is empty.
+	 */
+	private static SpeciesQuery filter(HashMap<String, String> params, String county)
+			throws IllegalArgumentException {
+		SpeciesQuery query = new SpeciesQuery();
+		if (params.containsKey(county))
+			query.inCounty(params.get(county));
+		for (int i = 0; i < ATTRIBUTE_PARAMETERS.length; i++) {
+			if (params.containsKey(ATTRIBUTE_PARAMETERS[i]))
+				query.where(SpeciesAttribute.values()[i], params.get(ATTRIBUTE_PARAMETERS[i]));
+		}
+		return query;
+	}
+
+	/**
+	 * Handles /species: shows the details of the species with the scientific name in the parameter name.
+	 * @param exchange	request and response.
+	 * @throws IOException	if the response cannot be sent.
+	 */
+	private void species(HttpExchange exchange) throws IOException {
+		HashMap<String, String> params = parameters(exchange);
+		if (params == null)
+			return;
+		String name = params.get("name");
+		if (name == null || name.equals("")) {
+			error(exchange, 400, "Missing parameter name");
+			return;
+		}
+		Species s = catalog.get().getByScientificName(name);
+		if (s == null) {
+			error(exchange, 404, "No species with scientific name " + name);
+			return;
+		}
+		StringBuilder json = new StringBuilder();
+		appendJson(json, s, true);
+		send(exchange, 200, json.toString());
+	}
+
+	/**
+	 * Handles /metrics: sends the metrics of the program as plain text, one "name value" line per metric.
+	 * @param exchange	request and response.
+	 * @throws IOException	if the response cannot be sent.
+	 */
+	private static void metrics(HttpExchange exchange) throws IOException {
+		if (parameters(exchange) == null)
+			return;
+		send(exchange, 200, "text/plain; charset=utf-8", Metrics.report());
+	}
+
+	/**
+	 * Parses the query string of a GET request. Any other request is answered with an error.
+	 * @param exchange	request and response.
+	 * @return	the decoded parameters, or null if the request was answered with an error.
+	 * @throws IOException	if the error response cannot be sent.
+	 */
+	private static HashMap<String, String> parameters(HttpExchange exchange) throws IOException {
+		if (!exchange.getRequestMethod().equals("GET")) {
+			exchange.getResponseHeaders().set("Allow", "GET");
+			error(exchange, 405, "Only GET is supported");
+			return null;
+		}
+		HashMap<String, String> params = new HashMap<>();
+		String query = exchange.getRequestURI().getRawQuery();
+		if (query == null)
+			return params;
+		for (String pair : query.split("&")) {
+			int eq = pair.indexOf('=');
+			String key = eq < 0 ? pair : pair.substring(0, eq);
+			String value = eq < 0 ? "" : pair.substring(eq + 1);
+			try {
+				params.put(URLDecoder.decode(key, StandardCharsets.UTF_8),
+						URLDecoder.decode(value, StandardCharsets.UTF_8));
+			} catch (IllegalArgumentException ex) {
+				error(exchange, 400, "Malformed query string");
+				return null;
+			}
+		}
+		return params;
+	}
+
+	/**
+	 * Converts a list of species to a JSON array.
+	 * @param list	species to convert, or null for none.
+	 * @return	the JSON array.
+	 */
+	static String toJson(Iterable<Species> list) {
+		StringBuilder json = new StringBuilder("[");
+		if (list != null) {
+			for (Species s : list) {
+				if (json.length() > 1)
+					json.append(',');
+				appendJson(json, s, false);
+			}
+		}
+		return json.append(']').toString();
+	}
+
+	/**
+	 * Appends counts as a JSON object, in the order of the map.
+	 * @param json	builder to append to.
+	 * @param counts	map of names to counts.
+	 */
+	static void appendCounts(StringBuilder json, Map<String, Integer> counts) {
+		json.append('{');
+		for (Map.Entry<String, Integer> e : counts.entrySet()) {
+			if (json.charAt(json.length() - 1) != '{')
+				json.append(',');
+			appendString(json, e.getKey());
+			json.append(':').append(e.getValue());
+		}
+		json.append('}');
+	}
+
+	/**
+	 * Appends a species as a JSON object.
+	 * @param json	builder to append to.
+	 * @param s	species to convert.
+	 * @param counties	true to list the names of the counties of the species, false to only count them.
+	 */
+	static void appendJson(StringBuilder json, Species s, boolean counties) {
+		json.append("{\"commonName\":");
+		appendString(json, s.getCommonName());
+		json.append(",\"scientificName\":");
+		appendString(json, s.getScientificName());
+		json.append(",\"category\":");
+		appendString(json, s.getCategory());
+		json.append(",\"taxonomicGroup\":");
+		appendString(json, s.getTaxonomicGroup());
+		json.append(",\"taxonomicSubGroup\":");
+		appendString(json, s.getTaxonomicSubGroup());
+		json.append(",\"nyListingStatus\":");
+		appendString(json, s.getNYListingStatus());
+		json.append(",\"countyCount\":").append(s.countyCount());
+		if (counties) {
+			json.append(",\"counties\":[");
+			boolean first = true;
+			for (String c : s.getCounties()) {
+				if (!first)
+					json.append(',');
+				appendString(json, c);
+				first = false;
+			}
+			json.append(']');
+		}
+		json.append('}');
+	}
+
+	/**
+	 * Appends a String as a JSON string literal, escaping quotes, backslashes and control characters.
+	 * @param json	builder to append to.
+	 * @param s	String to append.
+	 */
+	static void appendString(StringBuilder json, String s) {
+		json.append('"');
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\') {
+				json.append('\\').append(c);
+			} else if (c < 0x20) {
+				json.append(String.format("\\u%04x", (int) c));
+			} else {
+				json.append(c);
+			}
+		}
+		json.append('"');
+	}
+
+	/**
+	 * Sends an error response.
+	 * @param exchange	request and response.
+	 * @param status	HTTP status code.
+	 * @param message	description of the error.
+	 * @throws IOException	if the response cannot be sent.
+	 */
+	private static void error(HttpExchange exchange, int status, String message) throws IOException {
+		StringBuilder json = new StringBuilder("{\"error\":");
+		appendString(json, message);
+		send(exchange, status, json.append('}').toString());
+	}
+
+	/**
+	 * Sends a JSON response and closes the exchange.
+	 * @param exchange	request and response.
+	 * @param status	HTTP status code.
+	 * @param body	JSON body of the response.
+	 * @throws IOException	if the response cannot be sent.
+	 */
+	private static void send(HttpExchange exchange, int status, String body) throws IOException {
+		send(exchange, status, "application/json; charset=utf-8", body);
+	}
+
+	/**
+	 * Sends a response and closes the exchange.
+	 * @param exchange	request and response.
+	 * @param status	HTTP status code.
+	 * @param type	media type of the body.
+	 * @param body	body of the response.
+	 * @throws IOException	if the response cannot be sent.
+	 */
+	private static void send(HttpExchange exchange, int status, String type, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", type);
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+}
@@ -0,0 +1,158 @@
+package project3;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+/**
+ * This class checks that CSVParser and MappedCSVParser read the same records from input using every rule of
+ * RFC 4180 they follow: quoted fields holding commas, line breaks and escaped quotes, empty fields, CRLF line breaks,
+ * a last record without a line break, and characters outside ASCII. Both also end a record at a CR alone.
+ * CSVParser is also run on a Reader that returns one character per call, so that every quote, escaped quote and
+ * line break falls on the boundary of its buffer at least once.
+ * Run it from the directory holding src and test:
+ * javac -d out src/*.java test/*.java
+ * java -cp out project3.CSVParserTest
+ * It prints the number of checks passed, or throws an AssertionError describing the first one that failed.
+ * @author Adam Soliman
+ * @version 3-6-24
+ */
+public class CSVParserTest {
+
+	static final String INPUT = "Category,Group,Name\n"
+			+ "Animal,\"Herons, Bitterns, Egrets, Pelicans\",Great Egret\r\n"
+			+ "Plant,\"Two\nlines\",\"Say \"\"hi\"\"\"\n"
+			+ ",,\n"
+			+ "\"\",\"\"\"\",\u00c9pinette noire\n"
+			+ "Animal,Owls,Barn Owl\r"
+			+ "Plant,Ferns,\"Royal Fern\"\r"
+			+ "Animal,Birds,Last Record";
+
+	static final String[][] EXPECTED = {
+			{ "Category", "Group", "Name" },
+			{ "Animal", "Herons, Bitterns, Egrets, Pelicans", "Great Egret" },
+			{ "Plant", "Two\nlines", "Say \"hi\"" },
+			{ "", "", "" },
+			{ "", "\"", "\u00c9pinette noire" },
+			{ "Animal", "Owls", "Barn Owl" },
+			{ "Plant", "Ferns", "Royal Fern" },
+			{ "Animal", "Birds", "Last Record" } };
+
+	private static int checks;
+
+	/**
+	 * Runs the checks.
+	 * @param args	unused.
+	 * @throws IOException	if the input cannot be read.
+	 */
+	public static void main(String[] args) throws IOException {
+		check("CSVParser", read(new StringReader(INPUT)));
+		check("CSVParser, one character per read", read(new OneCharReader(INPUT)));
+		check("MappedCSVParser", readMapped(INPUT.getBytes(StandardCharsets.UTF_8)));
+
+		// only the selected columns are decoded
+		byte[] bytes = INPUT.getBytes(StandardCharsets.UTF_8);
+		MappedCSVParser mapped = new MappedCSVParser(ByteBuffer.wrap(bytes), 0, bytes.length);
+		String[] fields = new String[3];
+		mapped.next(fields, 0b101L);
+		mapped.next(fields, 0b101L);
+		check("MappedCSVParser, skipped column", Arrays.asList("Animal", null, "Great Egret"), Arrays.asList(fields));
+
+		// fields past the length of the array are counted but not stored
+		CSVParser parser = new CSVParser(new StringReader("a,b,c,d\n"));
+		String[] two = new String[2];
+		check("CSVParser, field count", 4, parser.next(two));
+		check("CSVParser, stored fields", Arrays.asList("a", "b"), Arrays.asList(two));
+		check("CSVParser, end of input", -1, parser.next(two));
+		System.out.println(checks + " checks passed");
+	}
+
+	/**
+	 * Reads every record with a CSVParser.
+	 * @param in	CSV input.
+	 * @return	the records read.
+	 * @throws IOException	if the input cannot be read.
+	 */
+	static ArrayList<String[]> read(Reader in) throws IOException {
+		ArrayList<String[]> records = new ArrayList<>();
+		try (CSVParser parser = new CSVParser(in)) {
+			String[] fields = new String[8];
+			int n;
+			while ((n = parser.next(fields)) >= 0) {
+				records.add(Arrays.copyOf(fields, n));
+			}
+			check("CSVParser, line number", EXPECTED.length, parser.getLineNumber());
+		}
+		return records;
+	}
+
+	/**
+	 * Reads every record with a MappedCSVParser, decoding every column.
+	 * @param bytes	UTF-8 encoded CSV input.
+	 * @return	the records read.
+	 */
+	static ArrayList<String[]> readMapped(byte[] bytes) {
+		ArrayList<String[]> records = new ArrayList<>();
+		MappedCSVParser parser = new MappedCSVParser(ByteBuffer.wrap(bytes), 0, bytes.length);
+		String[] fields = new String[8];
+		int n;
+		while ((n = parser.next(fields, -1L)) >= 0) {
+			records.add(Arrays.copyOf(fields, n));
+		}
+		return records;
+	}
+
+	/**
+	 * Checks that the records read are the expected ones.
+	 * @param what	description of the parser.
+	 * @param records	records read.
+	 */
+	static void check(String what, ArrayList<String[]> records) {
+		check(what + ", record count", EXPECTED.length, records.size());
+		for (int i = 0; i < EXPECTED.length; i++) {
+			check(what + ", record " + (i + 1), Arrays.asList(EXPECTED[i]), Arrays.asList(records.get(i)));
+		}
+	}
+
+	/**
+	 * Checks that a value is the expected one.
+	 * @param what	description of the value.
+	 * @param expected	expected value.
+	 * @param actual	actual value.
+	 * @throws AssertionError	if the values are not equal.
+	 */
+	static void check(String what, Object expected, Object actual) throws AssertionError {
+		if (!expected.equals(actual)) {
+			throw new AssertionError(what + ": expected " + expected + " but was " + actual);
+		}
+		checks++;
+	}
+
+	/**
+	 * A Reader over a String that returns at most one character per call to read().
+	 */
+	static class OneCharReader extends Reader {
+		private final String s;
+		private int pos;
+
+		OneCharReader(String s) {
+			this.s = s;
+		}
+
+		@Override
+		public int read(char[] buffer, int offset, int length) {
+			if (pos == s.length())
+				return -1;
+			if (length == 0)
+				return 0;
+			buffer[offset] = s.charAt(pos++);
+			return 1;
+		}
+
+		@Override
+		public void close() {}
+	}
+
+}
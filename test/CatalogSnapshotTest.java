@@ -0,0 +1,120 @@
+package project3;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+/**
+ * This class checks that a CatalogSnapshot loads back the list it was written from, and that every snapshot that
+ * should not be trusted is rejected rather than loaded: one written from a source file that has changed since, one
+ * of another format version, one that is not a snapshot, and one truncated at any length.
+ * Run it from the directory holding src and test:
+ * javac -d out src/*.java test/*.java
+ * java -cp out project3.CatalogSnapshotTest
+ * It prints the number of checks passed, or throws an AssertionError describing the first one that failed.
+ * @author Adam Soliman
+ * @version 3-6-24
+ */
+public class CatalogSnapshotTest {
+
+	static final String CSV = "County,Category,Taxonomic Group,Taxonomic Subgroup,Scientific Name,Common Name,"
+			+ "Year Last Documented,NY Listing Status\n"
+			+ "Albany,Animal,Birds,\"Herons, Bitterns, Egrets, Pelicans\",Ardea alba,Great Egret,2020,Protected Bird\n"
+			+ "Kings,Animal,Birds,\"Herons, Bitterns, Egrets, Pelicans\",Ardea alba,Great Egret,2021,Protected Bird\n"
+			+ "Albany,Plant,Vascular Plants,Ferns,Osmunda regalis,Royal Fern,1998,Unlisted\n"
+			+ "Essex,Animal,Mammals,Bats,Myotis sodalis,Indiana Bat,2019,Endangered\n"
+			+ "Kings,Animal,Mammals,Bats,Myotis sodalis,Indiana Bat,2019,Endangered\n"
+			+ "Suffolk,Animal,Mammals,Bats,Myotis sodalis,Indiana Bat,2019,Endangered\n";
+
+	private static int checks;
+
+	/**
+	 * Runs the checks.
+	 * @param args	unused.
+	 * @throws IOException	if the temporary files cannot be written.
+	 */
+	public static void main(String[] args) throws IOException {
+		File source = File.createTempFile("snapshot-test-", ".csv");
+		File snapshot = CatalogSnapshot.snapshotFile(source);
+		source.deleteOnExit();
+		snapshot.deleteOnExit();
+		Files.write(source.toPath(), CSV.getBytes(StandardCharsets.UTF_8));
+
+		// round trip
+		SpeciesList loaded = SpeciesLoader.load(source);
+		CatalogSnapshot.write(loaded, source, snapshot);
+		SpeciesList read = CatalogSnapshot.read(snapshot, source);
+		check("read", true, read != null);
+		check("size", 3, read.size());
+		check("size of the loaded list", loaded.size(), read.size());
+		for (int i = 0; i < loaded.size(); i++) {
+			Species expected = loaded.get(i);
+			Species actual = read.get(i);
+			check("species " + i, expected, actual);
+			check("attributes of species " + i, expected.toString(), actual.toString());
+			check("counties of species " + i, expected.getCounties(), actual.getCounties());
+		}
+
+		// truncated at every length
+		byte[] bytes = Files.readAllBytes(snapshot.toPath());
+		File truncated = new File(snapshot.getPath() + ".truncated");
+		truncated.deleteOnExit();
+		for (int length = 0; length < bytes.length; length++) {
+			Files.write(truncated.toPath(), Arrays.copyOf(bytes, length));
+			check("snapshot truncated to " + length + " bytes", null, CatalogSnapshot.read(truncated, source));
+		}
+
+		// another format version, and a file that is not a snapshot
+		check("version", null, readPatched(snapshot, source, bytes, 4, CatalogSnapshot.VERSION + 1));
+		check("magic number", null, readPatched(snapshot, source, bytes, 0, 0x12345678));
+		Files.write(snapshot.toPath(), bytes);
+		check("restored snapshot", true, CatalogSnapshot.read(snapshot, source) != null);
+
+		// a source file of the same size with other contents, and a longer source file
+		byte[] csv = CSV.getBytes(StandardCharsets.UTF_8);
+		csv[csv.length - 2] = 'D'; // "Endangered" -> "EndangereD"
+		Files.write(source.toPath(), csv);
+		check("source with the same size", null, CatalogSnapshot.read(snapshot, source));
+		Files.write(source.toPath(), (CSV + "Erie,Animal,Birds,Owls,Bubo scandiacus,Snowy Owl,2022,Protected Bird\n")
+				.getBytes(StandardCharsets.UTF_8));
+		check("longer source", null, CatalogSnapshot.read(snapshot, source));
+		check("missing snapshot", null, CatalogSnapshot.read(new File(snapshot.getPath() + ".missing"), source));
+		System.out.println(checks + " checks passed");
+	}
+
+	/**
+	 * Writes a copy of a snapshot with one int replaced, and reads it.
+	 * @param snapshot	snapshot file, overwritten by the copy.
+	 * @param source	CSV file of the snapshot.
+	 * @param bytes	contents of the snapshot.
+	 * @param offset	offset of the int to replace.
+	 * @param value	new value of the int.
+	 * @return	the list read from the copy, or null if it was rejected.
+	 * @throws IOException	if the copy cannot be written or read.
+	 */
+	static SpeciesList readPatched(File snapshot, File source, byte[] bytes, int offset, int value)
+			throws IOException {
+		Files.write(snapshot.toPath(), bytes);
+		try (RandomAccessFile raf = new RandomAccessFile(snapshot, "rw")) {
+			raf.seek(offset);
+			raf.writeInt(value);
+		}
+		return CatalogSnapshot.read(snapshot, source);
+	}
+
+	/**
+	 * Checks that a value is the expected one.
+	 * @param what	description of the value.
+	 * @param expected	expected value, or null.
+	 * @param actual	actual value.
+	 * @throws AssertionError	if the values are not equal.
+	 */
+	static void check(String what, Object expected, Object actual) throws AssertionError {
+		if (expected == null ? actual != null : !expected.equals(actual)) {
+			throw new AssertionError(what + ": expected " + expected + " but was " + actual);
+		}
+		checks++;
+	}
+
+}
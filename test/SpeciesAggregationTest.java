@@ -0,0 +1,132 @@
+package project3;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+/**
+ * This class checks that SpeciesAggregation computes the same totals on one thread and in parallel, and that both
+ * are the totals counted by hand: the number of species with each value of every attribute, values that differ
+ * only in case being one group, the number of species in each county, and the most widespread species in the order
+ * of MOST_WIDESPREAD, ties included. Filters matching every species, one in three species, and none are checked.
+ * Run it from the directory holding src and test:
+ * javac -d out src/*.java test/*.java
+ * java -cp out project3.SpeciesAggregationTest
+ * It prints the number of checks passed, or throws an AssertionError describing the first one that failed.
+ * @author Adam Soliman
+ * @version 3-6-24
+ */
+public class SpeciesAggregationTest {
+
+	static final String[] GROUPS = { "Birds", "BIRDS", "Mammals", "Amphibians", "Vascular Plants" };
+	static final String[] STATUSES = { "Endangered", "Threatened", "Special Concern", "Unlisted" };
+	static final String[] COUNTIES = { "Albany", "Bronx", "Kings", "Erie", "Essex", "Suffolk", "Yates" };
+
+	private static int checks;
+
+	/**
+	 * Runs the checks.
+	 * @param args	unused.
+	 */
+	public static void main(String[] args) {
+		Random random = new Random(7);
+		SpeciesList.Builder builder = SpeciesList.builder();
+		int n = 3 * SpeciesAggregation.PARALLEL_THRESHOLD;
+		for (int i = 0; i < n; i++) {
+			Species s = new Species(i % 4 == 0 ? "Plant" : "Animal", GROUPS[random.nextInt(GROUPS.length)],
+					"Subgroup " + random.nextInt(12), "Genus" + i + " species", "Common " + i,
+					STATUSES[random.nextInt(STATUSES.length)]);
+			// few counties per species, so most counts are tied
+			for (int c = random.nextInt(COUNTIES.length) + 1; c > 0; c--) {
+				builder.add(s, COUNTIES[random.nextInt(COUNTIES.length)]);
+			}
+		}
+		SpeciesList list = builder.build().freeze();
+		Species[] species = list.toArray();
+
+		BitSet all = new BitSet();
+		all.set(0, species.length);
+		BitSet third = new BitSet();
+		for (int o = 0; o < species.length; o += 3) {
+			third.set(o);
+		}
+		for (BitSet matches : new BitSet[] { all, third, new BitSet() }) {
+			for (int top : new int[] { 0, 1, 25 }) {
+				String what = matches.cardinality() + " matches, top " + top;
+				SpeciesAggregation serial = new SpeciesAggregation(species, Counties.count(), matches, top, false);
+				SpeciesAggregation parallel = new SpeciesAggregation(species, Counties.count(), matches, top, true);
+				check(what + ", serial", species, matches, top, serial);
+				check(what + ", parallel", species, matches, top, parallel);
+				for (SpeciesAttribute a : SpeciesAttribute.values()) {
+					// same groups, named the same, in the same order
+					check(what + ", order of " + a, new ArrayList<>(serial.countBy(a).entrySet()),
+							new ArrayList<>(parallel.countBy(a).entrySet()));
+				}
+				check(what + ", order of counties", new ArrayList<>(serial.countByCounty().entrySet()),
+						new ArrayList<>(parallel.countByCounty().entrySet()));
+				check(what + ", top counties", serial.topCounties(3), parallel.topCounties(3));
+			}
+		}
+
+		// through the list, with a filter
+		SpeciesAggregation endangered = list.aggregate(
+				new SpeciesQuery().where(SpeciesAttribute.NY_LISTING_STATUS, "endangered"), 10);
+		SpeciesList matches = list.query(new SpeciesQuery().where(SpeciesAttribute.NY_LISTING_STATUS, "endangered"));
+		check("filtered count", matches.size(), endangered.getCount());
+		check("filtered status", Map.of("Endangered", matches.size()),
+				endangered.countBy(SpeciesAttribute.NY_LISTING_STATUS));
+		System.out.println(checks + " checks passed");
+	}
+
+	/**
+	 * Checks totals against the totals counted by hand.
+	 * @param what	description of the totals.
+	 * @param species	species in ascending order.
+	 * @param matches	bitmap of the ordinals of the matching species.
+	 * @param top	number of most widespread species asked for.
+	 * @param totals	totals to check.
+	 */
+	static void check(String what, Species[] species, BitSet matches, int top, SpeciesAggregation totals) {
+		HashMap<String, Integer> groups = new HashMap<>();
+		HashMap<String, Integer> counties = new HashMap<>();
+		ArrayList<Species> widest = new ArrayList<>();
+		for (int o = matches.nextSetBit(0); o >= 0; o = matches.nextSetBit(o + 1)) {
+			// "Birds" and "BIRDS" are one group, named after whichever spelling comes first
+			groups.merge(Species.fold(species[o].getTaxonomicGroup()), 1, Integer::sum);
+			for (String county : species[o].getCounties()) {
+				counties.merge(county, 1, Integer::sum);
+			}
+			widest.add(species[o]);
+		}
+		widest.sort(SpeciesAggregation.MOST_WIDESPREAD);
+		check(what + ", count", matches.cardinality(), totals.getCount());
+		HashMap<String, Integer> folded = new HashMap<>();
+		totals.countBy(SpeciesAttribute.TAXONOMIC_GROUP).forEach((k, v) -> folded.put(Species.fold(k), v));
+		check(what + ", taxonomic groups", groups, folded);
+		check(what + ", number of taxonomic groups", groups.size(),
+				totals.countBy(SpeciesAttribute.TAXONOMIC_GROUP).size());
+		check(what + ", counties", counties, new HashMap<>(totals.countByCounty()));
+		check(what + ", most widespread", widest.subList(0, Math.min(top, widest.size())),
+				totals.getMostWidespread());
+		Integer previous = null;
+		for (int size : totals.countByCounty().values()) {
+			check(what + ", counties from the richest", true, previous == null || previous >= size);
+			previous = size;
+		}
+	}
+
+	/**
+	 * Checks that a value is the expected one.
+	 * @param what	description of the value.
+	 * @param expected	expected value.
+	 * @param actual	actual value.
+	 * @throws AssertionError	if the values are not equal.
+	 */
+	static void check(String what, Object expected, Object actual) throws AssertionError {
+		if (!expected.equals(actual)) {
+			throw new AssertionError(what + ": expected " + expected + " but was " + actual);
+		}
+		checks++;
+	}
+
+}